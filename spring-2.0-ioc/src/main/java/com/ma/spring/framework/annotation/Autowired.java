@@ -3,12 +3,12 @@ package com.ma.spring.framework.annotation;
 import java.lang.annotation.*;
 
 /**
- * 注入注解
+ * 注入注解：标注在字段或只有一个参数的setter方法上
  *
  * @author ma
  * @date 2020/3/21 0:51
  */
-@Target({ElementType.FIELD})
+@Target({ElementType.FIELD, ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface Autowired {
@@ -0,0 +1,19 @@
+package com.ma.spring.framework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * DELETE请求映射路径注解，等价于 @RequestMapping(method = RequestMethod.DELETE)
+ *
+ * @author ma
+ * @date 2026/10/18 19:45
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@RequestMapping(method = RequestMethod.DELETE)
+public @interface DeleteMapping {
+
+    String value() default "";
+
+}
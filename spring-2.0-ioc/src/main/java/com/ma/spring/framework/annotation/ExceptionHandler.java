@@ -0,0 +1,24 @@
+package com.ma.spring.framework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 异常处理方法注解：标注在Controller的方法上，处理该Controller映射方法抛出的异常
+ * <p>
+ * 方法参数可以是异常、HttpServletRequest、HttpServletResponse，返回值按映射方法的返回值写出。
+ * 调用前响应状态已设置为500，方法中可以调用response.setStatus()修改。
+ *
+ * @author ma
+ * @date 2026/10/19 00:50
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ExceptionHandler {
+
+    /**
+     * 处理的异常类型，为空时取方法参数中的异常类型
+     */
+    Class<? extends Throwable>[] value() default {};
+
+}
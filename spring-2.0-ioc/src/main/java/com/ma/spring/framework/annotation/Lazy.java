@@ -0,0 +1,21 @@
+package com.ma.spring.framework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 延时加载注解
+ * <p>
+ * 标注在组件类上：ApplicationContext启动时不创建，第一次getBean()时才创建；
+ * 标注在@Autowired字段、方法上：注入延时解析的代理，第一次调用方法时才查找Bean（注入的类型须为接口）。
+ *
+ * @author ma
+ * @date 2026/10/19 02:40
+ */
+@Target({ElementType.TYPE, ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Lazy {
+
+    boolean value() default true;
+
+}
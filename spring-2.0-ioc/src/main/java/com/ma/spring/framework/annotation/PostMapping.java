@@ -0,0 +1,19 @@
+package com.ma.spring.framework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * POST请求映射路径注解，等价于 @RequestMapping(method = RequestMethod.POST)
+ *
+ * @author ma
+ * @date 2026/10/18 19:45
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@RequestMapping(method = RequestMethod.POST)
+public @interface PostMapping {
+
+    String value() default "";
+
+}
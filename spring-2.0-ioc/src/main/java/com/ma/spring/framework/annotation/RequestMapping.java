@@ -15,4 +15,9 @@ public @interface RequestMapping {
 
     String value() default "";
 
+    /**
+     * 限定的请求方式，为空表示所有请求方式
+     */
+    RequestMethod[] method() default {};
+
 }
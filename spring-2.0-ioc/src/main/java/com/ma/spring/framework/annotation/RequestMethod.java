@@ -0,0 +1,42 @@
+package com.ma.spring.framework.annotation;
+
+/**
+ * HTTP请求方式
+ *
+ * @author ma
+ * @date 2026/10/18 19:40
+ */
+public enum RequestMethod {
+
+    GET, HEAD, POST, PUT, PATCH, DELETE, OPTIONS, TRACE;
+
+    /**
+     * 解析请求方式（HTTP方法名区分大小写，按规范的大写形式匹配）
+     *
+     * @param method req.getMethod()
+     * @return 请求方式，无法识别返回null
+     */
+    public static RequestMethod resolve(String method) {
+        switch (method) {
+            case "GET":
+                return GET;
+            case "HEAD":
+                return HEAD;
+            case "POST":
+                return POST;
+            case "PUT":
+                return PUT;
+            case "PATCH":
+                return PATCH;
+            case "DELETE":
+                return DELETE;
+            case "OPTIONS":
+                return OPTIONS;
+            case "TRACE":
+                return TRACE;
+            default:
+                return null;
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.ma.spring.framework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 作用域注解
+ * <p>
+ * singleton（默认）：容器中只有一个实例；
+ * prototype：每次getBean()、每个注入点都创建新的实例；
+ * request：每个请求一个实例，只能在DispatcherServlet分发请求的线程中使用，注入时（须为接口类型）注入作用域代理。
+ *
+ * @author ma
+ * @date 2026/10/19 04:30
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Scope {
+
+    String value() default "singleton";
+
+    /**
+     * 对象池大小（只用于request作用域）：大于0时实例从对象池借出，请求结束后归还，不再每个请求创建，
+     * 实现了PoolableBean的实例归还前调用reset()
+     */
+    int poolSize() default 0;
+
+}
@@ -0,0 +1,19 @@
+package com.ma.spring.framework.beans;
+
+/**
+ * IoC容器异常：Bean不存在、同一类型有多个候选、实例化或注入失败
+ *
+ * @author ma
+ * @date 2026/10/19 01:40
+ */
+public class BeansException extends RuntimeException {
+
+    public BeansException(String message) {
+        super(message);
+    }
+
+    public BeansException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
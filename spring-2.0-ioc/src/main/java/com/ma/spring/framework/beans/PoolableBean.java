@@ -0,0 +1,16 @@
+package com.ma.spring.framework.beans;
+
+/**
+ * 放入对象池的Bean（@Scope("request")且poolSize大于0）：请求结束归还对象池之前重置状态
+ *
+ * @author ma
+ * @date 2026/10/19 04:30
+ */
+public interface PoolableBean {
+
+    /**
+     * 清除本次请求留下的状态，抛出异常时该实例不再放回对象池
+     */
+    void reset();
+
+}
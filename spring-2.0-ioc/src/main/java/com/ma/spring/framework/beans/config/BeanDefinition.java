@@ -1,11 +1,108 @@
 package com.ma.spring.framework.beans.config;
 
 /**
- *
+ * Bean的定义：保存扫描到的组件信息，实例化时使用
  *
  * @author ma
  * @date 2021/4/26 23:22
  */
 public class BeanDefinition {
 
+    public static final String SCOPE_SINGLETON = "singleton";
+
+    public static final String SCOPE_PROTOTYPE = "prototype";
+
+    public static final String SCOPE_REQUEST = "request";
+
+    /**
+     * Bean的名称（默认类名首字母小写，可通过@Service("xxx")、@Controller("xxx")自定义）
+     */
+    private String factoryBeanName;
+
+    /**
+     * Bean的类全限定名
+     */
+    private String beanClassName;
+
+    /**
+     * 是否延时加载（ApplicationContext启动时不实例化）
+     */
+    private boolean lazyInit = false;
+
+    /**
+     * 作用域：singleton、prototype、request
+     */
+    private String scope = SCOPE_SINGLETON;
+
+    /**
+     * request作用域的对象池大小，0表示不使用对象池
+     */
+    private int poolSize = 0;
+
+    public BeanDefinition() {
+    }
+
+    public BeanDefinition(String factoryBeanName, String beanClassName) {
+        this.factoryBeanName = factoryBeanName;
+        this.beanClassName = beanClassName;
+    }
+
+    public String getFactoryBeanName() {
+        return factoryBeanName;
+    }
+
+    public void setFactoryBeanName(String factoryBeanName) {
+        this.factoryBeanName = factoryBeanName;
+    }
+
+    public String getBeanClassName() {
+        return beanClassName;
+    }
+
+    public void setBeanClassName(String beanClassName) {
+        this.beanClassName = beanClassName;
+    }
+
+    public boolean isLazyInit() {
+        return lazyInit;
+    }
+
+    public void setLazyInit(boolean lazyInit) {
+        this.lazyInit = lazyInit;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public boolean isSingleton() {
+        return SCOPE_SINGLETON.equals(scope);
+    }
+
+    public boolean isPrototype() {
+        return SCOPE_PROTOTYPE.equals(scope);
+    }
+
+    public boolean isRequestScoped() {
+        return SCOPE_REQUEST.equals(scope);
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    @Override
+    public String toString() {
+        return "BeanDefinition{factoryBeanName='" + factoryBeanName + "', beanClassName='" + beanClassName
+                + "', lazyInit=" + lazyInit + ", scope='" + scope + "', poolSize=" + poolSize + "}";
+    }
+
 }
@@ -1,23 +1,180 @@
 package com.ma.spring.framework.beans.support;
 
+import com.ma.spring.framework.annotation.Controller;
+import com.ma.spring.framework.annotation.Lazy;
+import com.ma.spring.framework.annotation.Scope;
+import com.ma.spring.framework.annotation.Service;
+import com.ma.spring.framework.beans.BeansException;
 import com.ma.spring.framework.beans.config.BeanDefinition;
+import com.ma.spring.framework.context.index.CandidateComponentsIndex;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
 
 /**
- *
+ * 读取配置文件、扫描包路径，把组件类（@Controller、@Service）封装成BeanDefinition，@Lazy标注的类设置为延时加载，
+ * @Scope设置作用域和对象池大小
+ * <p>
+ * 优先读取编译期生成的组件索引（META-INF/ma-spring.components），不需要遍历目录、加载每一个类；
+ * 类路径中没有索引（例如IDE编译时未执行注解处理器）或配置了context.index.ignore=true时才扫描包路径。
  *
  * @author ma
  * @date 2021/4/26 23:16
  */
 public class BeanDefinitionReader {
 
-    public BeanDefinitionReader(String... locations) {
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    /**
+     * 忽略组件索引，始终扫描包路径（索引过期时使用）
+     */
+    private static final String IGNORE_INDEX_KEY = "context.index.ignore";
+
+    /**
+     * application.properties配置文件
+     */
+    private final Properties contextConfig = new Properties();
+
+    /**
+     * 扫描包下的所有类全限定名
+     */
+    private final List<String> registryBeanClasses = new ArrayList<>();
 
+    public BeanDefinitionReader(String... locations) {
+        // 1、加载application.properties配置文件
+        this.doLoadConfig(locations[0]);
     }
 
+    /**
+     * 把扫描到的组件类封装成BeanDefinition
+     *
+     * @return BeanDefinition列表
+     */
     public List<BeanDefinition> loadBeanDefinitions() {
-        return null;
+        String scanPackage = contextConfig.getProperty("scan.package");
+
+        // 2、读取组件索引
+        CandidateComponentsIndex index = this.loadIndex();
+        if (index != null) {
+            List<BeanDefinition> result = new ArrayList<>();
+            for (CandidateComponentsIndex.Entry entry : index.getCandidates(scanPackage)) {
+                BeanDefinition beanDefinition = new BeanDefinition(entry.getBeanName(), entry.getClassName());
+                beanDefinition.setLazyInit(entry.isLazyInit());
+                beanDefinition.setScope(entry.getScope());
+                beanDefinition.setPoolSize(entry.getPoolSize());
+                result.add(beanDefinition);
+            }
+            return result;
+        }
+
+        // 3、没有索引时扫描包下的组件类，将类的全限定名放入registryBeanClasses集合列表
+        this.doScanner(scanPackage);
+        List<BeanDefinition> result = new ArrayList<>();
+        for (String className : registryBeanClasses) {
+            Class<?> beanClass;
+            try {
+                beanClass = Class.forName(className);
+            } catch (ClassNotFoundException | LinkageError e) {
+                throw new BeansException("Cannot load class: " + className, e);
+            }
+            // 接口、抽象类不能实例化
+            if (beanClass.isInterface() || Modifier.isAbstract(beanClass.getModifiers())) {
+                continue;
+            }
+            String beanName;
+            if (beanClass.isAnnotationPresent(Controller.class)) {
+                beanName = beanClass.getAnnotation(Controller.class).value();
+            } else if (beanClass.isAnnotationPresent(Service.class)) {
+                beanName = beanClass.getAnnotation(Service.class).value();
+            } else {
+                continue;
+            }
+            // 默认类名首字母小写
+            if ("".equals(beanName.trim())) {
+                beanName = toLowerFirstCase(beanClass.getSimpleName());
+            }
+            BeanDefinition beanDefinition = new BeanDefinition(beanName, beanClass.getName());
+            Lazy lazy = beanClass.getAnnotation(Lazy.class);
+            beanDefinition.setLazyInit(lazy != null && lazy.value());
+            Scope scope = beanClass.getAnnotation(Scope.class);
+            if (scope != null) {
+                beanDefinition.setScope(scope.value().trim());
+                beanDefinition.setPoolSize(scope.poolSize());
+            }
+            result.add(beanDefinition);
+        }
+        return result;
+    }
+
+    private CandidateComponentsIndex loadIndex() {
+        if (Boolean.parseBoolean(contextConfig.getProperty(IGNORE_INDEX_KEY, "false").trim())) {
+            return null;
+        }
+        try {
+            return CandidateComponentsIndex.load(this.getClass().getClassLoader());
+        } catch (IOException e) {
+            throw new BeansException("Cannot load component index", e);
+        }
+    }
+
+    public Properties getConfig() {
+        return contextConfig;
+    }
+
+    /**
+     * 1、加载application.properties配置文件
+     *
+     * @param contextConfigLocation 配置文件路径（可带classpath:前缀）
+     */
+    private void doLoadConfig(String contextConfigLocation) {
+        if (contextConfigLocation.startsWith(CLASSPATH_PREFIX)) {
+            contextConfigLocation = contextConfigLocation.substring(CLASSPATH_PREFIX.length());
+        }
+        /**
+         * 获取类路径下资源：
+         * 1、Class类的getResourceAsStream(String path)方法：以/开头相对classes根路径，不加则相对当前类的class文件。
+         *      InputStream is = this.getClass().getResourceAsStream("/xxx.txt");
+         * 2、ClassLoader类的getResourceAsStream(String path)方法：不能以/开头，因为本身就是相对classes路径。
+         *      InputStream is = this.getClass().getClassLoader().getResourceAsStream("xxx.txt");
+         */
+        try (InputStream is = this.getClass().getClassLoader().getResourceAsStream(contextConfigLocation)) {
+            if (is == null) {
+                throw new BeansException("Config location not found: " + contextConfigLocation);
+            }
+            // 读取格式为"key=value"的.properties文件
+            contextConfig.load(is);
+        } catch (IOException e) {
+            throw new BeansException("Cannot load config location: " + contextConfigLocation, e);
+        }
+    }
+
+    /**
+     * 3、扫描包下的所有组件类，将类的全限定名放入registryBeanClasses集合列表。
+     * 只解析.class文件头判断是否为组件，非组件类不会被加载
+     *
+     * @param scanPackage 扫描的包路径
+     */
+    private void doScanner(String scanPackage) {
+        registryBeanClasses.addAll(ClassPathComponentScanner.scan(this.getClass().getClassLoader(), scanPackage));
+    }
+
+    /**
+     * 首字母转小写
+     *
+     * @param simpleName 类名
+     * @return 首字母小写的类名
+     */
+    static String toLowerFirstCase(String simpleName) {
+        if (Character.isLowerCase(simpleName.charAt(0))) {
+            return simpleName;
+        }
+        char[] charArray = simpleName.toCharArray();
+        charArray[0] = Character.toLowerCase(charArray[0]);
+        return new String(charArray);
     }
 
 }
@@ -0,0 +1,160 @@
+package com.ma.spring.framework.beans.support;
+
+import com.ma.spring.framework.beans.PoolableBean;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * request作用域Bean的对象池：固定容量、无锁（每个槽位CAS借出、归还）。
+ * <p>
+ * 1、借出：从线程对应的槽位开始找空闲实例，找不到时创建新的实例；对象池初始为空，
+ *    实例数（创建且未丢弃的）不足容量时是预热，达到容量后仍要创建才记为一次耗尽；
+ * 2、归还：实现了PoolableBean的先reset()，再放入空槽位，没有空槽位时丢弃；
+ * 3、统计借出、创建、耗尽、丢弃次数，耗尽次数持续增长说明poolSize偏小。
+ *
+ * @author ma
+ * @date 2026/10/19 04:30
+ */
+public final class BeanPool {
+
+    private final String beanName;
+
+    private final AtomicReferenceArray<Object> slots;
+
+    private final Supplier<Object> factory;
+
+    private final LongAdder borrowed = new LongAdder();
+
+    private final LongAdder created = new LongAdder();
+
+    /** 对象池的实例数：创建且未丢弃的（借出的和空闲的） */
+    private final AtomicInteger instances = new AtomicInteger();
+
+    private final LongAdder exhausted = new LongAdder();
+
+    private final LongAdder discarded = new LongAdder();
+
+    BeanPool(String beanName, int capacity, Supplier<Object> factory) {
+        this.beanName = beanName;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.factory = factory;
+    }
+
+    Object borrow() {
+        borrowed.increment();
+        int capacity = slots.length();
+        int start = this.startIndex();
+        for (int i = 0; i < capacity; i++) {
+            int index = (start + i) % capacity;
+            Object instance = slots.get(index);
+            if (instance != null && slots.compareAndSet(index, instance, null)) {
+                return instance;
+            }
+        }
+        if (instances.getAndIncrement() >= capacity) {
+            exhausted.increment();
+        }
+        Object instance;
+        try {
+            instance = factory.get();
+        } catch (RuntimeException e) {
+            instances.decrementAndGet();
+            throw e;
+        }
+        created.increment();
+        return instance;
+    }
+
+    void release(Object instance) {
+        if (instance instanceof PoolableBean) {
+            try {
+                ((PoolableBean) instance).reset();
+            } catch (RuntimeException e) {
+                // 状态未知的实例不再复用
+                this.discard();
+                return;
+            }
+        }
+        int capacity = slots.length();
+        int start = this.startIndex();
+        for (int i = 0; i < capacity; i++) {
+            int index = (start + i) % capacity;
+            if (slots.get(index) == null && slots.compareAndSet(index, null, instance)) {
+                return;
+            }
+        }
+        this.discard();
+    }
+
+    private void discard() {
+        instances.decrementAndGet();
+        discarded.increment();
+    }
+
+    /**
+     * 不同线程从不同槽位开始查找，减少CAS冲突
+     */
+    private int startIndex() {
+        int hash = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        return (hash >>> 1) % slots.length();
+    }
+
+    public String getBeanName() {
+        return beanName;
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * @return 当前空闲的实例数（近似值）
+     */
+    public int getIdle() {
+        int idle = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                idle++;
+            }
+        }
+        return idle;
+    }
+
+    /**
+     * @return 借出次数
+     */
+    public long getBorrowed() {
+        return borrowed.sum();
+    }
+
+    /**
+     * @return 创建实例的次数（包括预热）
+     */
+    public long getCreated() {
+        return created.sum();
+    }
+
+    /**
+     * @return 实例数已达容量、仍需新建实例的次数（不包括预热）
+     */
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+
+    /**
+     * @return 归还时对象池已满（或reset()失败）而丢弃的次数
+     */
+    public long getDiscarded() {
+        return discarded.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "BeanPool{beanName='" + beanName + "', capacity=" + getCapacity() + ", idle=" + getIdle()
+                + ", borrowed=" + getBorrowed() + ", created=" + getCreated() + ", exhausted=" + getExhausted() + ", discarded=" + getDiscarded() + "}";
+    }
+
+}
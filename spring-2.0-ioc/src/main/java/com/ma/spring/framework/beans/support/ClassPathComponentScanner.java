@@ -0,0 +1,366 @@
+package com.ma.spring.framework.beans.support;
+
+import com.ma.spring.framework.annotation.Controller;
+import com.ma.spring.framework.annotation.Service;
+import com.ma.spring.framework.beans.BeansException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 没有组件索引时扫描类路径：直接读取目录和jar（NIO zip FileSystem）中的.class文件，
+ * 只解析常量池和类的RuntimeVisibleAnnotations属性，找出标注了@Controller、@Service的类。
+ * <p>
+ * 1、常量池中没有组件注解的描述符时直接跳过（DTO、工具类等绝大多数类在这一步结束）；
+ * 2、接口、抽象类不是候选组件；
+ * 3、只有候选组件才交给Class.forName加载，其他类启动时不会被加载；
+ * 4、读取、解析文件在并行流中进行。
+ *
+ * @author ma
+ * @date 2026/10/19 03:30
+ */
+final class ClassPathComponentScanner {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    /**
+     * 组件注解的描述符（形如Lcom/ma/spring/framework/annotation/Controller;）
+     */
+    private static final byte[][] STEREOTYPES = {descriptor(Controller.class), descriptor(Service.class)};
+
+    private ClassPathComponentScanner() {
+    }
+
+    /**
+     * 扫描包（及其子包）下的组件类
+     *
+     * @param classLoader 类加载器
+     * @param basePackage 包名
+     * @return 组件类的全限定名（已排序）
+     */
+    static List<String> scan(ClassLoader classLoader, String basePackage) {
+        String packagePath = basePackage.replace('.', '/');
+        List<FileSystem> opened = new ArrayList<>();
+        try {
+            // 1、找出类路径中各个目录、jar下的包路径，收集.class文件
+            List<Path> classFiles = new ArrayList<>();
+            Enumeration<URL> urls = classLoader.getResources(packagePath);
+            while (urls.hasMoreElements()) {
+                Path root = toPath(urls.nextElement(), packagePath, opened);
+                if (root == null || !Files.isDirectory(root)) {
+                    continue;
+                }
+                try (Stream<Path> paths = Files.walk(root)) {
+                    paths.filter(p -> p.getFileName().toString().endsWith(".class")).forEach(classFiles::add);
+                }
+            }
+
+            // 2、并行读取、解析
+            return classFiles.parallelStream()
+                    .map(ClassPathComponentScanner::readCandidate)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException e) {
+            throw new BeansException("Cannot scan package: " + basePackage, e);
+        } finally {
+            for (FileSystem fileSystem : opened) {
+                try {
+                    fileSystem.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * URL转为Path：file:直接转换，jar:通过zip FileSystem打开（新打开的加入opened，扫描结束后关闭）
+     */
+    private static Path toPath(URL url, String packagePath, List<FileSystem> opened) throws IOException {
+        try {
+            if ("file".equals(url.getProtocol())) {
+                return Paths.get(url.toURI());
+            }
+            if (!"jar".equals(url.getProtocol())) {
+                return null;
+            }
+            String spec = url.toString();
+            int separator = spec.indexOf("!/");
+            if (separator < 0) {
+                return null;
+            }
+            URI jarUri = new URI(spec.substring(0, separator + 2));
+            FileSystem fileSystem;
+            try {
+                fileSystem = FileSystems.getFileSystem(jarUri);
+            } catch (FileSystemNotFoundException e) {
+                fileSystem = FileSystems.newFileSystem(jarUri, Collections.<String, Object>emptyMap());
+                opened.add(fileSystem);
+            }
+            return fileSystem.getPath(packagePath);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid classpath URL: " + url, e);
+        }
+    }
+
+    private static String readCandidate(Path classFile) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(classFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            return new ClassHeader(bytes).candidateClassName();
+        } catch (RuntimeException e) {
+            throw new BeansException("Malformed class file: " + classFile.toUri(), e);
+        }
+    }
+
+    private static byte[] descriptor(Class<?> annotationType) {
+        return ("L" + annotationType.getName().replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * class文件的解析：只读常量池、类的访问标志、类名和类上的注解，字段、方法只跳过
+     */
+    private static final class ClassHeader {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        /** 常量池各项在bytes中的偏移（指向tag） */
+        private int[] constantOffsets;
+
+        ClassHeader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * @return 是组件类时返回类的全限定名，否则返回null
+         */
+        String candidateClassName() {
+            if (bytes.length < 10 || readInt() != MAGIC) {
+                throw new IllegalArgumentException("Bad magic number");
+            }
+            // minor_version、major_version
+            position += 4;
+
+            // 1、常量池，同时检查是否出现组件注解的描述符
+            if (!this.readConstantPool()) {
+                return null;
+            }
+
+            // 2、访问标志：接口、抽象类（注解也是接口）不能实例化
+            int accessFlags = readUnsignedShort();
+            if ((accessFlags & (ACC_INTERFACE | ACC_ABSTRACT)) != 0) {
+                return null;
+            }
+            String className = this.classNameAt(readUnsignedShort());
+            // super_class、interfaces
+            position += 2;
+            int interfacesCount = readUnsignedShort();
+            position += 2 * interfacesCount;
+
+            // 3、跳过字段、方法
+            this.skipMembers();
+            this.skipMembers();
+
+            // 4、类的属性中查找RuntimeVisibleAnnotations
+            int attributesCount = readUnsignedShort();
+            for (int i = 0; i < attributesCount; i++) {
+                int nameIndex = readUnsignedShort();
+                int length = readInt();
+                int end = position + length;
+                if (this.utf8Equals(nameIndex, RUNTIME_VISIBLE_ANNOTATIONS) && this.hasStereotype()) {
+                    return className;
+                }
+                position = end;
+            }
+            return null;
+        }
+
+        private boolean readConstantPool() {
+            int count = readUnsignedShort();
+            constantOffsets = new int[count];
+            boolean found = false;
+            for (int i = 1; i < count; i++) {
+                constantOffsets[i] = position;
+                int tag = bytes[position++] & 0xFF;
+                switch (tag) {
+                    case 1:
+                        int length = readUnsignedShort();
+                        if (!found && this.isStereotype(position, length)) {
+                            found = true;
+                        }
+                        position += length;
+                        break;
+                    case 7:
+                    case 8:
+                    case 16:
+                    case 19:
+                    case 20:
+                        position += 2;
+                        break;
+                    case 15:
+                        position += 3;
+                        break;
+                    case 3:
+                    case 4:
+                    case 9:
+                    case 10:
+                    case 11:
+                    case 12:
+                    case 17:
+                    case 18:
+                        position += 4;
+                        break;
+                    case 5:
+                    case 6:
+                        // long、double占两项
+                        position += 8;
+                        i++;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown constant pool tag " + tag + " at " + (position - 1));
+                }
+            }
+            return found;
+        }
+
+        private void skipMembers() {
+            int count = readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                // access_flags、name_index、descriptor_index
+                position += 6;
+                int attributesCount = readUnsignedShort();
+                for (int j = 0; j < attributesCount; j++) {
+                    position += 2;
+                    int length = readInt();
+                    position += length;
+                }
+            }
+        }
+
+        /**
+         * RuntimeVisibleAnnotations中是否有组件注解
+         */
+        private boolean hasStereotype() {
+            int count = readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                int typeIndex = readUnsignedShort();
+                int offset = constantOffsets[typeIndex];
+                if (this.isStereotype(offset + 3, ((bytes[offset + 1] & 0xFF) << 8) | (bytes[offset + 2] & 0xFF))) {
+                    return true;
+                }
+                this.skipElementValuePairs();
+            }
+            return false;
+        }
+
+        private void skipElementValuePairs() {
+            int pairs = readUnsignedShort();
+            for (int i = 0; i < pairs; i++) {
+                position += 2;
+                this.skipElementValue();
+            }
+        }
+
+        private void skipElementValue() {
+            int tag = bytes[position++] & 0xFF;
+            switch (tag) {
+                case 'e':
+                    position += 4;
+                    break;
+                case '@':
+                    position += 2;
+                    this.skipElementValuePairs();
+                    break;
+                case '[':
+                    int count = readUnsignedShort();
+                    for (int i = 0; i < count; i++) {
+                        this.skipElementValue();
+                    }
+                    break;
+                default:
+                    // B C D F I J S Z s c：常量池索引
+                    position += 2;
+                    break;
+            }
+        }
+
+        private boolean isStereotype(int offset, int length) {
+            for (byte[] stereotype : STEREOTYPES) {
+                if (stereotype.length == length && this.regionMatches(offset, stereotype)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean regionMatches(int offset, byte[] expected) {
+            for (int i = 0; i < expected.length; i++) {
+                if (bytes[offset + i] != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean utf8Equals(int index, String expected) {
+            int offset = constantOffsets[index];
+            int length = ((bytes[offset + 1] & 0xFF) << 8) | (bytes[offset + 2] & 0xFF);
+            return length == expected.length()
+                    && this.regionMatches(offset + 3, expected.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        /**
+         * CONSTANT_Class指向的内部名（com/ma/Foo$Bar）转为Class.forName使用的名称
+         */
+        private String classNameAt(int classIndex) {
+            int nameOffset = constantOffsets[((bytes[constantOffsets[classIndex] + 1] & 0xFF) << 8)
+                    | (bytes[constantOffsets[classIndex] + 2] & 0xFF)];
+            int length = ((bytes[nameOffset + 1] & 0xFF) << 8) | (bytes[nameOffset + 2] & 0xFF);
+            // Modified UTF-8只在\u0000和补充字符上与UTF-8不同，类名中不会出现
+            return new String(bytes, nameOffset + 3, length, StandardCharsets.UTF_8).replace('/', '.');
+        }
+
+        private int readUnsignedShort() {
+            int value = ((bytes[position] & 0xFF) << 8) | (bytes[position + 1] & 0xFF);
+            position += 2;
+            return value;
+        }
+
+        private int readInt() {
+            int value = ((bytes[position] & 0xFF) << 24) | ((bytes[position + 1] & 0xFF) << 16)
+                    | ((bytes[position + 2] & 0xFF) << 8) | (bytes[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+    }
+
+}
@@ -1,29 +1,630 @@
 package com.ma.spring.framework.beans.support;
 
+import com.ma.spring.framework.beans.BeansException;
 import com.ma.spring.framework.beans.config.BeanDefinition;
 import com.ma.spring.framework.core.BeanFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- *
+ * 默认的Bean工厂：保存BeanDefinition，创建并缓存单例。
+ * <p>
+ * 1、单例缓存使用ConcurrentHashMap，已创建的单例无锁读取；ApplicationContext启动时并行创建全部非延时加载的单例，
+ *    运行期创建延时加载的单例时使用一把全局的创建锁（按Bean加锁时，两个互相依赖的延时加载Bean在两个线程中同时创建，
+ *    会各自持有自己的锁等待对方，形成死锁），已创建单例的查找不受影响；
+ * 2、注册BeanDefinition时预先建立类型索引：Bean的类、父类、接口 -> beanName，
+ *    getBean(Class)只需一次哈希查找，不再逐个isAssignableFrom；
+ * 3、创建过程中的单例提前暴露，字段注入的循环依赖可以正常完成；
+ * 4、注入尚未创建的延时加载Bean（或标注@Lazy的字段）时，接口类型的字段注入LazyResolutionProxy，第一次调用时才创建；
+ * 5、有编译期生成的GeneratedBeanFactory时用它创建Bean、注入字段，没有时通过反射；
+ *    反射注入时每个类的注入点只扫描一次（InjectionMetadata），解析出的beanName缓存在注入点中；
+ * 6、prototype作用域每次创建新的实例；request作用域的实例保存在当前线程的RequestScope中，
+ *    配置了poolSize的从BeanPool借出、请求结束时归还，注入时注入作用域代理。
  *
  * @author ma
  * @date 2021/4/26 22:53
  */
 public class DefaultListableBeanFactory implements BeanFactory {
 
+    private static final String[] NO_NAMES = new String[0];
+
+    /**
+     * BeanDefinition：beanName -> 定义
+     */
+    private final Map<String, BeanDefinition> beanDefinitionMap = new ConcurrentHashMap<>(256);
+
+    /**
+     * 注册顺序的beanName
+     */
+    private volatile String[] beanDefinitionNames = NO_NAMES;
+
+    /**
+     * 类型索引：类、父类、接口 -> beanName（注册后只读）
+     */
+    private final Map<Class<?>, String[]> typeIndex = new ConcurrentHashMap<>(256);
+
+    /**
+     * beanName -> Bean的类
+     */
+    private final Map<String, Class<?>> beanClasses = new ConcurrentHashMap<>(256);
+
+    /**
+     * beanName -> 编译期生成的Bean工厂（没有生成的不在其中）
+     */
+    private final Map<String, GeneratedBeanFactory> generatedFactories = new ConcurrentHashMap<>(256);
+
+    /**
+     * beanName -> 生成的Bean工厂查找依赖用的解析器（对应到类的注入点，注册新的BeanDefinition后重建）
+     */
+    private final Map<String, GeneratedDependencyResolver> generatedResolvers = new ConcurrentHashMap<>(256);
+
+    /**
+     * 类 -> 注入点（注册新的BeanDefinition后清空，按新的类型索引重新解析beanName）
+     */
+    private final Map<Class<?>, InjectionMetadata> injectionMetadataCache = new ConcurrentHashMap<>(256);
+
+    /**
+     * 单例缓存：beanName -> 完成注入的实例
+     */
+    private final Map<String, Object> singletonObjects = new ConcurrentHashMap<>(256);
+
+    /**
+     * 创建中的单例：已实例化、尚未完成注入（只有持有创建锁的线程会读到）
+     */
+    private final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<>(16);
+
+    /**
+     * 运行期创建单例的全局锁：同一线程递归创建依赖时可重入
+     */
+    private final Object creationLock = new Object();
+
+    /**
+     * 注册BeanDefinition的锁
+     */
+    private final Object registryLock = new Object();
+
+    /**
+     * request作用域Bean的对象池：beanName -> 对象池
+     */
+    private final Map<String, BeanPool> beanPools = new ConcurrentHashMap<>(16);
+
+    /**
+     * 是否有request作用域的Bean（没有时不需要打开RequestScope）
+     */
+    private volatile boolean hasRequestScopedBeans;
+
+    /**
+     * 当前线程正在创建的prototype Bean，用于检测循环依赖（创建单例期间挂起：
+     * prototype -> 单例 -> 同一prototype会得到新的实例，单例的循环依赖由提前暴露解决，不构成循环）
+     */
+    private final ThreadLocal<Set<String>> prototypesInCreation = ThreadLocal.withInitial(LinkedHashSet::new);
+
     @Override
     public Object getBean(Class beanClass) {
-        return null;
+        String[] names = this.getBeanNamesForType(beanClass);
+        if (names.length == 0) {
+            throw new BeansException("No bean of type " + beanClass.getName());
+        }
+        if (names.length > 1) {
+            throw new BeansException("Expected single bean of type " + beanClass.getName()
+                    + " but found " + names.length + ": " + Arrays.toString(names));
+        }
+        return this.getBean(names[0]);
     }
 
     @Override
     public Object getBean(String beanName) {
-        return null;
+        // 已创建的单例：无锁读取
+        Object singleton = singletonObjects.get(beanName);
+        if (singleton != null) {
+            return singleton;
+        }
+        BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
+        if (beanDefinition == null) {
+            throw new BeansException("No bean named '" + beanName + "'");
+        }
+        if (beanDefinition.isSingleton()) {
+            return this.createSingleton(beanName, beanDefinition);
+        }
+        if (beanDefinition.isPrototype()) {
+            return this.createPrototype(beanName, beanDefinition);
+        }
+        return this.getRequestScopedBean(beanName, beanDefinition);
+    }
+
+    /**
+     * 进入当前线程的请求作用域：作用域对象在第一次获取request作用域的Bean时才创建
+     *
+     * @return 外层的作用域，交给endRequestScope()恢复
+     */
+    public RequestScope beginRequestScope() {
+        return hasRequestScopedBeans ? RequestScope.begin() : null;
+    }
+
+    /**
+     * 离开当前线程的请求作用域，请求处理结束后调用返回的作用域的close()
+     *
+     * @param previous beginRequestScope()的返回值
+     * @return 本次请求创建的作用域，没有使用request作用域的Bean时返回null
+     */
+    public RequestScope endRequestScope(RequestScope previous) {
+        return hasRequestScopedBeans ? RequestScope.end(previous) : null;
+    }
+
+    /**
+     * request作用域Bean的对象池（用于查看借出、耗尽次数）
+     *
+     * @param beanName beanName
+     * @return 对象池，没有配置poolSize时返回null
+     */
+    public BeanPool getBeanPool(String beanName) {
+        return beanPools.get(beanName);
+    }
+
+    /**
+     * 按类型查找beanName
+     *
+     * @param type 类型（类、父类或接口）
+     * @return beanName数组，没有时返回空数组
+     */
+    public String[] getBeanNamesForType(Class<?> type) {
+        String[] names = typeIndex.get(type);
+        return names == null ? NO_NAMES : names.clone();
+    }
+
+    public boolean containsBean(String beanName) {
+        return beanDefinitionMap.containsKey(beanName);
+    }
+
+    public BeanDefinition getBeanDefinition(String beanName) {
+        return beanDefinitionMap.get(beanName);
+    }
+
+    public String[] getBeanDefinitionNames() {
+        return beanDefinitionNames.clone();
     }
 
+    public int getBeanDefinitionCount() {
+        return beanDefinitionMap.size();
+    }
+
+    public Class<?> getType(String beanName) {
+        return beanClasses.get(beanName);
+    }
+
+    /**
+     * 注册BeanDefinition，并建立类型索引
+     *
+     * @param beanDefinitions BeanDefinition列表
+     */
     public void doRegistBeanDefinition(List<BeanDefinition> beanDefinitions) {
+        synchronized (registryLock) {
+            Map<Class<?>, Set<String>> index = new LinkedHashMap<>();
+            for (Map.Entry<Class<?>, String[]> entry : typeIndex.entrySet()) {
+                index.put(entry.getKey(), new LinkedHashSet<>(Arrays.asList(entry.getValue())));
+            }
+            List<String> names = new ArrayList<>(Arrays.asList(beanDefinitionNames));
+            for (BeanDefinition beanDefinition : beanDefinitions) {
+                String beanName = beanDefinition.getFactoryBeanName();
+                if (beanDefinitionMap.containsKey(beanName)) {
+                    throw new BeansException("The bean name '" + beanName + "' is exists: "
+                            + beanDefinitionMap.get(beanName).getBeanClassName() + ", "
+                            + beanDefinition.getBeanClassName());
+                }
+                checkScope(beanDefinition);
+                Class<?> beanClass;
+                try {
+                    beanClass = Class.forName(beanDefinition.getBeanClassName());
+                } catch (ClassNotFoundException e) {
+                    throw new BeansException("Cannot load bean class: " + beanDefinition.getBeanClassName(), e);
+                }
+                beanDefinitionMap.put(beanName, beanDefinition);
+                beanClasses.put(beanName, beanClass);
+                GeneratedBeanFactory generated = loadGeneratedFactory(beanClass);
+                if (generated != null) {
+                    generatedFactories.put(beanName, generated);
+                }
+                if (beanDefinition.isRequestScoped()) {
+                    hasRequestScopedBeans = true;
+                    if (beanDefinition.getPoolSize() > 0) {
+                        beanPools.put(beanName, new BeanPool(beanName, beanDefinition.getPoolSize(),
+                                () -> this.createBean(beanName, beanDefinition)));
+                    }
+                }
+                names.add(beanName);
+                for (Class<?> type : typesOf(beanClass)) {
+                    index.computeIfAbsent(type, k -> new LinkedHashSet<>()).add(beanName);
+                }
+            }
+            for (Map.Entry<Class<?>, Set<String>> entry : index.entrySet()) {
+                typeIndex.put(entry.getKey(), entry.getValue().toArray(NO_NAMES));
+            }
+            beanDefinitionNames = names.toArray(NO_NAMES);
+            injectionMetadataCache.clear();
+            for (Map.Entry<String, GeneratedBeanFactory> entry : generatedFactories.entrySet()) {
+                String beanName = entry.getKey();
+                InjectionMetadata.InjectedElement[] elements = this.getInjectionMetadata(beanClasses.get(beanName))
+                        .match(entry.getValue().getInjectionPoints());
+                if (elements == null) {
+                    // 生成的工厂与类不一致（例如类修改后没有重新执行注解处理器），回退到反射
+                    System.err.println("Generated bean factory of '" + beanName
+                            + "' does not match its class, reflection will be used");
+                    generatedFactories.remove(beanName);
+                    generatedResolvers.remove(beanName);
+                    continue;
+                }
+                generatedResolvers.put(beanName, new GeneratedDependencyResolver(beanName, elements));
+            }
+        }
+    }
 
+    private static void checkScope(BeanDefinition beanDefinition) {
+        if (!beanDefinition.isSingleton() && !beanDefinition.isPrototype() && !beanDefinition.isRequestScoped()) {
+            throw new BeansException("Unknown scope '" + beanDefinition.getScope() + "' of bean '"
+                    + beanDefinition.getFactoryBeanName() + "'");
+        }
+        if (beanDefinition.getPoolSize() < 0
+                || (beanDefinition.getPoolSize() > 0 && !beanDefinition.isRequestScoped())) {
+            throw new BeansException("Invalid poolSize " + beanDefinition.getPoolSize() + " of bean '"
+                    + beanDefinition.getFactoryBeanName() + "': only request-scoped beans can be pooled");
+        }
     }
+
+    /**
+     * 查找编译期生成的Bean工厂（与Bean的类在同一个包中）
+     *
+     * @return 生成的工厂，没有时返回null
+     */
+    private static GeneratedBeanFactory loadGeneratedFactory(Class<?> beanClass) {
+        Class<?> factoryClass;
+        try {
+            factoryClass = Class.forName(beanClass.getName() + GeneratedBeanFactory.CLASS_SUFFIX, true,
+                    beanClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        try {
+            return (GeneratedBeanFactory) factoryClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new BeansException("Cannot instantiate generated bean factory: " + factoryClass.getName(), e);
+        }
+    }
+
+    /**
+     * Bean的类、所有父类（不含Object）、所有接口（含父接口）
+     */
+    private static Set<Class<?>> typesOf(Class<?> beanClass) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (Class<?> c = beanClass; c != null && c != Object.class; c = c.getSuperclass()) {
+            types.add(c);
+            addInterfaces(c, types);
+        }
+        return types;
+    }
+
+    private static void addInterfaces(Class<?> type, Set<Class<?>> types) {
+        for (Class<?> i : type.getInterfaces()) {
+            if (types.add(i)) {
+                addInterfaces(i, types);
+            }
+        }
+    }
+
+    /**
+     * 创建单例：每个Bean只创建一次。启动后只有延时加载的单例走到这里，次数很少，用全局锁换取不会死锁
+     */
+    private Object createSingleton(String beanName, BeanDefinition beanDefinition) {
+        synchronized (creationLock) {
+            Object singleton = singletonObjects.get(beanName);
+            if (singleton != null) {
+                return singleton;
+            }
+            // 循环依赖：返回已实例化、尚未完成注入的实例
+            Object early = earlySingletonObjects.get(beanName);
+            if (early != null) {
+                return early;
+            }
+            Set<String> suspended = this.suspendPrototypesInCreation();
+            Object instance;
+            try {
+                instance = this.instantiateBean(beanName, beanDefinition);
+                earlySingletonObjects.put(beanName, instance);
+                try {
+                    this.populateBean(beanName, instance);
+                } finally {
+                    earlySingletonObjects.remove(beanName);
+                }
+            } finally {
+                this.resumePrototypesInCreation(suspended);
+            }
+            singletonObjects.put(beanName, instance);
+            return instance;
+        }
+    }
+
+    /**
+     * 创建prototype Bean：每次都是新的实例，不缓存
+     */
+    private Object createPrototype(String beanName, BeanDefinition beanDefinition) {
+        Set<String> inCreation = prototypesInCreation.get();
+        if (!inCreation.add(beanName)) {
+            throw new BeansException("Circular dependency between prototype beans: " + inCreation + " -> " + beanName);
+        }
+        try {
+            return this.createBean(beanName, beanDefinition);
+        } finally {
+            inCreation.remove(beanName);
+        }
+    }
+
+    /**
+     * 开始创建单例：挂起当前线程正在创建的prototype Bean
+     *
+     * @return 挂起的集合，没有正在创建的prototype Bean时返回null（不分配新的集合）
+     */
+    private Set<String> suspendPrototypesInCreation() {
+        Set<String> inCreation = prototypesInCreation.get();
+        if (inCreation.isEmpty()) {
+            return null;
+        }
+        prototypesInCreation.set(new LinkedHashSet<>());
+        return inCreation;
+    }
+
+    private void resumePrototypesInCreation(Set<String> suspended) {
+        if (suspended != null) {
+            prototypesInCreation.set(suspended);
+        }
+    }
+
+    /**
+     * 当前请求的实例：第一次使用时创建（或从对象池借出），同一请求中再次获取返回同一个实例
+     */
+    private Object getRequestScopedBean(String beanName, BeanDefinition beanDefinition) {
+        RequestScope scope = RequestScope.current();
+        if (scope == null) {
+            throw new BeansException("No request scope active for bean '" + beanName
+                    + "': request-scoped beans are only available on the thread dispatching the request");
+        }
+        Object instance = scope.get(beanName);
+        if (instance == null) {
+            BeanPool pool = beanPools.get(beanName);
+            if (pool != null) {
+                instance = pool.borrow();
+                scope.putBorrowed(beanName, instance, pool);
+            } else {
+                instance = this.createBean(beanName, beanDefinition);
+                scope.put(beanName, instance);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 实例化并注入，不缓存（prototype、request作用域）
+     */
+    private Object createBean(String beanName, BeanDefinition beanDefinition) {
+        Object instance = this.instantiateBean(beanName, beanDefinition);
+        this.populateBean(beanName, instance);
+        return instance;
+    }
+
+    /**
+     * 并行创建所有非延时加载的单例：按@Autowired依赖关系拓扑排序，没有依赖关系的Bean同时创建
+     *
+     * @param parallelism 并行度
+     */
+    public void preInstantiateSingletons(int parallelism) {
+        new SingletonPreInstantiator(this, parallelism).run();
+    }
+
+    /**
+     * 依赖的beanName（@Autowired字段、方法，包括父类的），用于构建依赖图
+     *
+     * @param beanName beanName
+     * @return 依赖的beanName，按字段顺序
+     */
+    List<String> getDependencyNames(String beanName) {
+        List<String> names = new ArrayList<>();
+        for (InjectionMetadata.InjectedElement element : this.getInjectionMetadata(beanClasses.get(beanName)).elements) {
+            String name = this.resolveDependencyName(beanName, element);
+            // 注入代理的依赖不会在注入时创建，不构成依赖关系
+            if (name != null && !names.contains(name) && !beanDefinitionMap.get(name).isRequestScoped()
+                    && !this.isLazyInjection(name, element.type, element.lazy)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 依赖已经全部创建完成时创建单例：不加全局锁，由SingletonPreInstantiator保证同一Bean只创建一次
+     *
+     * @param beanName beanName
+     */
+    void createSingletonWithoutLock(String beanName) {
+        if (singletonObjects.containsKey(beanName)) {
+            return;
+        }
+        BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
+        Set<String> suspended = this.suspendPrototypesInCreation();
+        try {
+            Object instance = this.instantiateBean(beanName, beanDefinition);
+            this.populateBean(beanName, instance);
+            singletonObjects.putIfAbsent(beanName, instance);
+        } finally {
+            this.resumePrototypesInCreation(suspended);
+        }
+    }
+
+    /**
+     * 调用无参构造器实例化
+     */
+    private Object instantiateBean(String beanName, BeanDefinition beanDefinition) {
+        GeneratedBeanFactory generated = generatedFactories.get(beanName);
+        if (generated != null) {
+            return generated.instantiate();
+        }
+        try {
+            return beanClasses.get(beanName).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new BeansException("Cannot instantiate bean '" + beanName + "': "
+                    + beanDefinition.getBeanClassName(), e);
+        }
+    }
+
+    /**
+     * 依赖注入：@Autowired字段、方法（包括父类的）
+     */
+    private void populateBean(String beanName, Object instance) {
+        GeneratedBeanFactory generated = generatedFactories.get(beanName);
+        if (generated != null) {
+            generated.populate(instance, generatedResolvers.get(beanName));
+            return;
+        }
+        for (InjectionMetadata.InjectedElement element : this.getInjectionMetadata(instance.getClass()).elements) {
+            String name = this.resolveDependencyName(beanName, element);
+            if (name == null) {
+                continue;
+            }
+            Object dependency = this.getInjectedBean(beanName, element.description, name, element.type, element.lazy);
+            try {
+                element.inject(instance, dependency);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new BeansException("Cannot inject " + element.description + " of bean '" + beanName + "'", e);
+            }
+        }
+    }
+
+    /**
+     * 类的注入点，每个类只扫描一次
+     */
+    private InjectionMetadata getInjectionMetadata(Class<?> beanClass) {
+        InjectionMetadata metadata = injectionMetadataCache.get(beanClass);
+        if (metadata == null) {
+            metadata = injectionMetadataCache.computeIfAbsent(beanClass, InjectionMetadata::forClass);
+        }
+        return metadata;
+    }
+
+    /**
+     * 查找注入点的beanName，解析结果缓存在注入点中
+     *
+     * @return beanName，非必需且不存在时返回null
+     */
+    private String resolveDependencyName(String beanName, InjectionMetadata.InjectedElement element) {
+        InjectionMetadata.ResolvedName resolved = element.resolved;
+        if (resolved == null) {
+            String name = this.resolveDependencyName(beanName, element.description, element.type, element.name,
+                    element.qualifier, element.required);
+            resolved = name == null ? InjectionMetadata.ResolvedName.NONE : new InjectionMetadata.ResolvedName(name);
+            element.resolved = resolved;
+        }
+        return resolved.beanName;
+    }
+
+    /**
+     * 注入的对象：request作用域注入作用域代理，延时加载注入延时解析的代理，其他注入Bean本身
+     */
+    private Object getInjectedBean(String beanName, String injectionPoint, String dependencyName, Class<?> type,
+                                   Boolean lazy) {
+        if (beanDefinitionMap.get(dependencyName).isRequestScoped()) {
+            if (!type.isInterface()) {
+                throw new BeansException("Cannot inject " + injectionPoint + " of bean '" + beanName
+                        + "': request-scoped bean '" + dependencyName + "' must be injected through an interface");
+            }
+            return LazyResolutionProxy.createScoped(this, dependencyName, type);
+        }
+        if (this.isLazyInjection(dependencyName, type, lazy)) {
+            return LazyResolutionProxy.create(this, dependencyName, type);
+        }
+        return this.getBean(dependencyName);
+    }
+
+    /**
+     * 是否注入延时解析的代理：依赖的Bean尚未创建，且是延时加载的Bean或字段标注了@Lazy，字段类型为接口
+     */
+    private boolean isLazyInjection(String dependencyName, Class<?> type, Boolean lazy) {
+        if (!type.isInterface() || singletonObjects.containsKey(dependencyName)) {
+            return false;
+        }
+        if (lazy != null) {
+            return lazy;
+        }
+        return beanDefinitionMap.get(dependencyName).isLazyInit();
+    }
+
+    /**
+     * 查找注入的beanName：指定了名称按名称，否则按类型；同一类型有多个候选时取与字段同名的
+     *
+     * @return beanName，非必需且不存在时返回null
+     */
+    private String resolveDependencyName(String beanName, String injectionPoint, Class<?> type, String fieldName,
+                                         String qualifier, boolean required) {
+        String name = qualifier.trim();
+        if (!name.isEmpty()) {
+            if (!containsBean(name)) {
+                if (!required) {
+                    return null;
+                }
+                throw new BeansException("Cannot inject field " + injectionPoint + " of bean '" + beanName
+                        + "': no bean named '" + name + "'");
+            }
+            return name;
+        }
+        String[] candidates = typeIndex.getOrDefault(type, NO_NAMES);
+        if (candidates.length == 1) {
+            return candidates[0];
+        }
+        if (candidates.length > 1) {
+            for (String candidate : candidates) {
+                if (candidate.equals(fieldName)) {
+                    return candidate;
+                }
+            }
+            throw new BeansException("Cannot inject field " + injectionPoint + " of bean '" + beanName
+                    + "': expected single bean but found " + Arrays.toString(candidates));
+        }
+        if (required) {
+            throw new BeansException("Cannot inject field " + injectionPoint + " of bean '" + beanName
+                    + "': no bean of type " + type.getName());
+        }
+        return null;
+    }
+
+    /**
+     * 供生成的Bean工厂查找依赖：按下标对应到类的注入点，与反射注入共用注入点中缓存的解析结果
+     */
+    private final class GeneratedDependencyResolver implements GeneratedBeanFactory.DependencyResolver {
+
+        private final String beanName;
+
+        /** 下标与生成的工厂一致 */
+        private final InjectionMetadata.InjectedElement[] elements;
+
+        GeneratedDependencyResolver(String beanName, InjectionMetadata.InjectedElement[] elements) {
+            this.beanName = beanName;
+            this.elements = elements;
+        }
+
+        @Override
+        public Object resolve(int index) {
+            InjectionMetadata.InjectedElement element = elements[index];
+            String name = resolveDependencyName(beanName, element);
+            if (name == null) {
+                return null;
+            }
+            return getInjectedBean(beanName, element.description, name, element.type, element.lazy);
+        }
+    }
+
 }
@@ -0,0 +1,56 @@
+package com.ma.spring.framework.beans.support;
+
+/**
+ * 编译期生成的Bean工厂：ComponentIndexProcessor为每个组件生成"类名__BeanFactory"，
+ * 用new创建Bean、直接给@Autowired字段赋值（生成的代码不能访问的字段用类加载时取得的setter句柄），不需要反射。
+ * <p>
+ * DefaultListableBeanFactory注册BeanDefinition时查找生成的工厂，找不到时仍然通过反射创建、注入。
+ *
+ * @author ma
+ * @date 2026/10/19 03:50
+ */
+public interface GeneratedBeanFactory {
+
+    /**
+     * 生成的工厂类名的后缀
+     */
+    String CLASS_SUFFIX = "__BeanFactory";
+
+    /**
+     * 调用无参构造器创建Bean
+     *
+     * @return Bean实例
+     */
+    Object instantiate();
+
+    /**
+     * 注入点（"声明类#字段名"或"声明类#方法名"），下标与populate()中查找依赖的下标一致
+     *
+     * @return 注入点
+     */
+    String[] getInjectionPoints();
+
+    /**
+     * 注入@Autowired字段、调用@Autowired方法（包括父类的）
+     *
+     * @param bean Bean实例
+     * @param resolver 依赖的查找
+     */
+    void populate(Object bean, DependencyResolver resolver);
+
+    /**
+     * 依赖的查找，由Bean工厂实现
+     */
+    interface DependencyResolver {
+
+        /**
+         * 查找注入的Bean：下标对应到类的注入点（InjectionMetadata），规则与反射注入相同，
+         * 解析出的beanName缓存在注入点中
+         *
+         * @param index 注入点下标
+         * @return 注入的Bean，非必需且不存在时返回null
+         */
+        Object resolve(int index);
+    }
+
+}
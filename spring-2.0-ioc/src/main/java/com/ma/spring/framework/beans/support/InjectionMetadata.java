@@ -0,0 +1,198 @@
+package com.ma.spring.framework.beans.support;
+
+import com.ma.spring.framework.annotation.Autowired;
+import com.ma.spring.framework.annotation.Lazy;
+import com.ma.spring.framework.beans.BeansException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 一个类的注入点：@Autowired字段和setter方法（包括父类的），每个类只扫描一次。
+ * <p>
+ * 注入点保存赋值用的MethodHandle、@Autowired的名称和required、@Lazy，以及解析出的beanName，
+ * 之后创建Bean时只需遍历数组，不再getDeclaredFields()、读取注解。
+ * 编译期生成的Bean工厂按注入点的key（声明类#字段名、方法名）对应到同一个数组，两种创建方式共用解析结果。
+ *
+ * @author ma
+ * @date 2026/10/19 04:10
+ */
+final class InjectionMetadata {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * 注入顺序：子类在前，同一个类中先字段后方法
+     */
+    final InjectedElement[] elements;
+
+    private InjectionMetadata(InjectedElement[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * 扫描类的注入点
+     *
+     * @param beanClass Bean的类
+     * @return 注入点
+     */
+    static InjectionMetadata forClass(Class<?> beanClass) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<InjectedElement> elements = new ArrayList<>();
+        // 子类重写的方法：父类的同一方法不再注入
+        Set<String> methodSignatures = new HashSet<>();
+        for (Class<?> c = beanClass; c != null && c != Object.class; c = c.getSuperclass()) {
+            // 把所有的包括private/protected/default/public 修饰字段都取出来
+            for (Field field : c.getDeclaredFields()) {
+                Autowired autowired = field.getAnnotation(Autowired.class);
+                if (autowired == null || Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                // 暴力访问
+                field.setAccessible(true);
+                MethodHandle setter;
+                try {
+                    setter = lookup.unreflectSetter(field);
+                } catch (IllegalAccessException e) {
+                    throw new BeansException("Cannot access field " + field, e);
+                }
+                elements.add(new InjectedElement(c.getName() + "#" + field.getName(), field.toString(),
+                        field.getName(), field.getType(), autowired, field.getAnnotation(Lazy.class), setter));
+            }
+            for (Method method : c.getDeclaredMethods()) {
+                Autowired autowired = method.getAnnotation(Autowired.class);
+                if (autowired == null || Modifier.isStatic(method.getModifiers()) || method.isBridge()) {
+                    continue;
+                }
+                if (!methodSignatures.add(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+                    continue;
+                }
+                if (method.getParameterCount() != 1) {
+                    throw new BeansException("@Autowired method must have exactly one parameter: " + method);
+                }
+                method.setAccessible(true);
+                MethodHandle setter;
+                try {
+                    setter = lookup.unreflect(method);
+                } catch (IllegalAccessException e) {
+                    throw new BeansException("Cannot access method " + method, e);
+                }
+                elements.add(new InjectedElement(c.getName() + "#" + method.getName(), method.toString(),
+                        propertyName(method), method.getParameterTypes()[0], autowired, method.getAnnotation(Lazy.class),
+                        setter));
+            }
+        }
+        return new InjectionMetadata(elements.toArray(new InjectedElement[0]));
+    }
+
+    /**
+     * 按key对应注入点（生成的Bean工厂使用）：同一key（重载的方法）按出现顺序依次对应
+     *
+     * @param keys 注入点的key
+     * @return 与keys一一对应的注入点，有对应不上的（生成的工厂与类不一致）返回null
+     */
+    InjectedElement[] match(String[] keys) {
+        if (keys.length != elements.length) {
+            return null;
+        }
+        InjectedElement[] matched = new InjectedElement[keys.length];
+        boolean[] used = new boolean[elements.length];
+        for (int i = 0; i < keys.length; i++) {
+            for (int j = 0; j < elements.length; j++) {
+                if (!used[j] && elements[j].key.equals(keys[i])) {
+                    used[j] = true;
+                    matched[i] = elements[j];
+                    break;
+                }
+            }
+            if (matched[i] == null) {
+                return null;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * setter方法对应的属性名（setDemoService -> demoService），用于同一类型多个候选时按名称匹配
+     */
+    private static String propertyName(Method method) {
+        String name = method.getName();
+        if (name.length() > 3 && name.startsWith("set")) {
+            return BeanDefinitionReader.toLowerFirstCase(name.substring(3));
+        }
+        return name;
+    }
+
+    /**
+     * 一个注入点
+     */
+    static final class InjectedElement {
+
+        /** 声明类#字段名或方法名 */
+        final String key;
+
+        /** 字段或方法的描述（用于异常信息） */
+        final String description;
+
+        /** 字段名或setter对应的属性名 */
+        final String name;
+
+        final Class<?> type;
+
+        /** @Autowired指定的beanName */
+        final String qualifier;
+
+        final boolean required;
+
+        /** @Lazy的值，没有标注时为null */
+        final Boolean lazy;
+
+        /** (Object bean, Object value)void */
+        private final MethodHandle setter;
+
+        /** 解析结果，尚未解析时为null */
+        volatile ResolvedName resolved;
+
+        InjectedElement(String key, String description, String name, Class<?> type, Autowired autowired, Lazy lazy,
+                        MethodHandle setter) {
+            this.key = key;
+            this.description = description;
+            this.name = name;
+            this.type = type;
+            this.qualifier = autowired.value();
+            this.required = autowired.required();
+            this.lazy = lazy == null ? null : lazy.value();
+            this.setter = setter.asType(SETTER_TYPE);
+        }
+
+        void inject(Object bean, Object value) throws Throwable {
+            setter.invokeExact(bean, value);
+        }
+    }
+
+    /**
+     * 注入点的解析结果
+     */
+    static final class ResolvedName {
+
+        /** 非必需且不存在 */
+        static final ResolvedName NONE = new ResolvedName(null);
+
+        /** 注入的beanName，NONE时为null */
+        final String beanName;
+
+        ResolvedName(String beanName) {
+            this.beanName = beanName;
+        }
+    }
+
+}
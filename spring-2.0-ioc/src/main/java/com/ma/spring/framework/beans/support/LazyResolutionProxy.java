@@ -0,0 +1,97 @@
+package com.ma.spring.framework.beans.support;
+
+import com.ma.spring.framework.core.BeanFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * 延时加载Bean的注入代理：第一次调用方法时才通过getBean()创建目标Bean，之后直接调用缓存的目标。
+ * <p>
+ * request作用域Bean的作用域代理不缓存目标，每次调用都通过getBean()取当前请求的实例。
+ *
+ * @author ma
+ * @date 2026/10/19 02:40
+ */
+final class LazyResolutionProxy implements InvocationHandler {
+
+    private final BeanFactory beanFactory;
+
+    private final String beanName;
+
+    /**
+     * 是否缓存目标（作用域代理不缓存）
+     */
+    private final boolean cacheTarget;
+
+    private volatile Object target;
+
+    private LazyResolutionProxy(BeanFactory beanFactory, String beanName, boolean cacheTarget) {
+        this.beanFactory = beanFactory;
+        this.beanName = beanName;
+        this.cacheTarget = cacheTarget;
+    }
+
+    /**
+     * 创建代理
+     *
+     * @param beanFactory Bean工厂
+     * @param beanName 目标beanName
+     * @param type 注入点的类型（接口）
+     * @return 代理
+     */
+    static Object create(BeanFactory beanFactory, String beanName, Class<?> type) {
+        return newProxy(type, new LazyResolutionProxy(beanFactory, beanName, true));
+    }
+
+    /**
+     * 创建作用域代理：每次调用都取当前作用域的目标
+     *
+     * @param beanFactory Bean工厂
+     * @param beanName 目标beanName
+     * @param type 注入点的类型（接口）
+     * @return 代理
+     */
+    static Object createScoped(BeanFactory beanFactory, String beanName, Class<?> type) {
+        return newProxy(type, new LazyResolutionProxy(beanFactory, beanName, false));
+    }
+
+    private static Object newProxy(Class<?> type, LazyResolutionProxy handler) {
+        ClassLoader classLoader = type.getClassLoader() != null ? type.getClassLoader()
+                : Thread.currentThread().getContextClassLoader();
+        return Proxy.newProxyInstance(classLoader, new Class<?>[]{type}, handler);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // equals、hashCode按代理自身计算，不触发目标Bean的创建
+        if ("equals".equals(method.getName()) && method.getParameterCount() == 1
+                && method.getParameterTypes()[0] == Object.class) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        Object t = target;
+        if (!cacheTarget) {
+            t = beanFactory.getBean(beanName);
+        } else if (t == null) {
+            // getBean()保证只创建一次，并发时多个线程拿到的是同一个实例
+            t = beanFactory.getBean(beanName);
+            target = t;
+        }
+        try {
+            return method.invoke(t, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LazyResolutionProxy{beanName='" + beanName + "', resolved=" + (target != null) + "}";
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.ma.spring.framework.beans.support;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个请求的作用域：保存本次请求创建（或从对象池借出）的request作用域Bean，绑定在分发请求的线程上。
+ * <p>
+ * DispatcherServlet在doDispatch()开始时begin()、结束时end()：begin()只在线程上做标记，
+ * 第一次获取request作用域的Bean时才创建作用域对象，不使用request作用域Bean的请求不分配对象。
+ * end()返回本次分发创建的作用域，由调用方close()，关闭时把借出的实例归还对象池；
+ * 异步处理接管响应时，DispatcherServlet在异步处理结束后才close()，异步任务中仍可使用分发时取得的实例。
+ * 异步处理在其他线程中执行时不在作用域内，不能再获取request作用域的Bean。
+ *
+ * @author ma
+ * @date 2026/10/19 04:30
+ */
+public final class RequestScope implements AutoCloseable {
+
+    /**
+     * 已经begin()、尚未创建作用域对象的标记
+     */
+    private static final RequestScope PENDING = new RequestScope();
+
+    /**
+     * 当前线程的作用域：null（不在作用域内）、PENDING或已创建的作用域
+     */
+    private static final ThreadLocal<RequestScope> CURRENT = new ThreadLocal<>();
+
+    /**
+     * beanName -> 本次请求的实例（线程封闭，不需要同步）
+     */
+    private final Map<String, Object> beans = new HashMap<>(8);
+
+    /**
+     * 从对象池借出、请求结束时归还的实例
+     */
+    private final List<Object[]> borrowed = new ArrayList<>(4);
+
+    private RequestScope() {
+    }
+
+    /**
+     * 进入请求作用域（不创建作用域对象）
+     *
+     * @return 外层的作用域（同一线程中嵌套的分发，例如forward、include），交给end()恢复
+     */
+    static RequestScope begin() {
+        RequestScope previous = CURRENT.get();
+        CURRENT.set(PENDING);
+        return previous;
+    }
+
+    /**
+     * 离开请求作用域，恢复外层的作用域
+     *
+     * @param previous begin()的返回值
+     * @return 本次分发创建的作用域，没有使用request作用域的Bean时返回null
+     */
+    static RequestScope end(RequestScope previous) {
+        RequestScope scope = CURRENT.get();
+        // set(null)而不是remove()：线程池中的线程复用ThreadLocal的条目
+        CURRENT.set(previous);
+        return scope == PENDING ? null : scope;
+    }
+
+    /**
+     * 当前线程的作用域，第一次获取时创建
+     *
+     * @return 作用域，不在请求作用域内时返回null
+     */
+    static RequestScope current() {
+        RequestScope scope = CURRENT.get();
+        if (scope == PENDING) {
+            scope = new RequestScope();
+            CURRENT.set(scope);
+        }
+        return scope;
+    }
+
+    Object get(String beanName) {
+        return beans.get(beanName);
+    }
+
+    void put(String beanName, Object instance) {
+        beans.put(beanName, instance);
+    }
+
+    void putBorrowed(String beanName, Object instance, BeanPool pool) {
+        beans.put(beanName, instance);
+        borrowed.add(new Object[]{pool, instance});
+    }
+
+    /**
+     * 归还借出的实例
+     */
+    @Override
+    public void close() {
+        for (Object[] entry : borrowed) {
+            ((BeanPool) entry[0]).release(entry[1]);
+        }
+        borrowed.clear();
+        beans.clear();
+    }
+
+}
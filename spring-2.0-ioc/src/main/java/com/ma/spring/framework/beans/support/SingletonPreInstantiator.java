@@ -0,0 +1,284 @@
+package com.ma.spring.framework.beans.support;
+
+import com.ma.spring.framework.beans.BeansException;
+import com.ma.spring.framework.beans.config.BeanDefinition;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 启动时并行创建非延时加载的单例。
+ * <p>
+ * 1、根据@Autowired字段构建依赖图（经过延时加载Bean、prototype Bean的依赖传递到其依赖的非延时加载单例）；
+ * 2、创建之前先拓扑排序，检测出循环依赖：循环中的Bean（以及依赖它们的Bean）最后按顺序创建，依靠提前暴露完成注入；
+ * 3、其余Bean在ForkJoinPool中创建：依赖全部创建完成后才提交，没有依赖关系的Bean同时创建；
+ * 4、记录每个Bean的创建耗时，输出决定启动时间下限的关键路径。
+ *
+ * @author ma
+ * @date 2026/10/19 02:10
+ */
+final class SingletonPreInstantiator {
+
+    private final DefaultListableBeanFactory factory;
+
+    private final int parallelism;
+
+    SingletonPreInstantiator(DefaultListableBeanFactory factory, int parallelism) {
+        this.factory = factory;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    void run() {
+        long start = System.nanoTime();
+
+        // 1、构建依赖图
+        Map<String, Node> nodes = new LinkedHashMap<>();
+        for (String beanName : factory.getBeanDefinitionNames()) {
+            BeanDefinition beanDefinition = factory.getBeanDefinition(beanName);
+            if (beanDefinition.isSingleton() && !beanDefinition.isLazyInit()) {
+                nodes.put(beanName, new Node(beanName));
+            }
+        }
+        if (nodes.isEmpty()) {
+            return;
+        }
+        for (Node node : nodes.values()) {
+            for (String dependency : this.eagerDependencies(node.beanName, nodes)) {
+                Node dependencyNode = nodes.get(dependency);
+                node.dependencies.add(dependencyNode);
+                dependencyNode.dependents.add(node);
+            }
+            node.pending.set(node.dependencies.size());
+        }
+
+        // 2、拓扑排序，剩下的节点处在循环依赖中（或依赖循环中的节点）
+        List<Node> sorted = topologicalSort(nodes.values());
+        List<Node> cyclic = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            if (!node.sorted) {
+                cyclic.add(node);
+            }
+        }
+        if (!cyclic.isEmpty()) {
+            System.out.println("Circular dependency: " + describeCycle(cyclic.get(0))
+                    + ", " + cyclic.size() + " beans will be instantiated sequentially");
+        }
+
+        // 3、并行创建
+        this.instantiateInParallel(sorted);
+
+        // 4、循环依赖中的Bean按顺序创建
+        for (Node node : cyclic) {
+            long begin = System.nanoTime();
+            factory.getBean(node.beanName);
+            node.duration = System.nanoTime() - begin;
+        }
+
+        this.report(sorted, nodes.size(), System.nanoTime() - start);
+    }
+
+    /**
+     * 依赖的非延时加载Bean：依赖的是延时加载Bean时，继续查找它的依赖
+     */
+    private Set<String> eagerDependencies(String beanName, Map<String, Node> nodes) {
+        Set<String> result = new LinkedHashSet<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push(beanName);
+        while (!stack.isEmpty()) {
+            for (String dependency : factory.getDependencyNames(stack.pop())) {
+                if (nodes.containsKey(dependency)) {
+                    result.add(dependency);
+                } else if (visited.add(dependency)) {
+                    stack.push(dependency);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<Node> topologicalSort(Iterable<Node> nodes) {
+        Map<Node, Integer> inDegree = new LinkedHashMap<>();
+        Deque<Node> ready = new ArrayDeque<>();
+        for (Node node : nodes) {
+            inDegree.put(node, node.dependencies.size());
+            if (node.dependencies.isEmpty()) {
+                ready.add(node);
+            }
+        }
+        List<Node> sorted = new ArrayList<>();
+        while (!ready.isEmpty()) {
+            Node node = ready.poll();
+            node.sorted = true;
+            sorted.add(node);
+            for (Node dependent : node.dependents) {
+                if (inDegree.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * 从未排序的节点出发沿依赖走，直到回到走过的节点
+     */
+    private static String describeCycle(Node start) {
+        List<Node> path = new ArrayList<>();
+        Node node = start;
+        while (!path.contains(node)) {
+            path.add(node);
+            for (Node dependency : node.dependencies) {
+                if (!dependency.sorted) {
+                    node = dependency;
+                    break;
+                }
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Node n : path.subList(path.indexOf(node), path.size())) {
+            sb.append(n.beanName).append(" -> ");
+        }
+        return sb.append(node.beanName).toString();
+    }
+
+    private void instantiateInParallel(List<Node> sorted) {
+        if (sorted.isEmpty()) {
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism, contextClassLoaderThreadFactory(), null, false);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(sorted.size());
+        try {
+            for (Node node : sorted) {
+                if (node.dependencies.isEmpty()) {
+                    this.submit(pool, node, remaining, done);
+                }
+            }
+            done.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BeansException) {
+                throw (BeansException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new BeansException("Cannot instantiate singletons", cause);
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 工作线程沿用调用者（容器启动线程）的上下文类加载器：ForkJoinPool默认的工作线程使用系统类加载器，
+     * Web容器中Bean的构造器、@Autowired方法里通过TCCL加载的资源、类（如JDBC驱动、ServiceLoader）会找不到
+     */
+    private static ForkJoinPool.ForkJoinWorkerThreadFactory contextClassLoaderThreadFactory() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("singleton-creator-" + thread.getPoolIndex());
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        };
+    }
+
+    private void submit(ForkJoinPool pool, Node node, AtomicInteger remaining, CompletableFuture<Void> done) {
+        pool.execute(() -> {
+            if (done.isDone()) {
+                // 已有Bean创建失败
+                return;
+            }
+            long begin = System.nanoTime();
+            try {
+                factory.createSingletonWithoutLock(node.beanName);
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+                return;
+            }
+            node.duration = System.nanoTime() - begin;
+            for (Node dependent : node.dependents) {
+                if (dependent.pending.decrementAndGet() == 0) {
+                    this.submit(pool, dependent, remaining, done);
+                }
+            }
+            if (remaining.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        });
+    }
+
+    /**
+     * 输出创建耗时和关键路径（依赖链上创建耗时之和最大的一条）
+     */
+    private void report(List<Node> sorted, int count, long elapsed) {
+        Node last = null;
+        long total = 0;
+        for (Node node : sorted) {
+            total += node.duration;
+            node.finish = node.duration;
+            for (Node dependency : node.dependencies) {
+                if (dependency.finish + node.duration > node.finish) {
+                    node.finish = dependency.finish + node.duration;
+                    node.critical = dependency;
+                }
+            }
+            if (last == null || node.finish > last.finish) {
+                last = node;
+            }
+        }
+        StringBuilder path = new StringBuilder();
+        for (Node node = last; node != null; node = node.critical) {
+            path.insert(0, node.critical == null ? node.beanName : " -> " + node.beanName);
+        }
+        System.out.println("Instantiated " + count + " singletons in " + millis(elapsed) + "ms (parallelism "
+                + parallelism + ", total " + millis(total) + "ms), critical path "
+                + millis(last == null ? 0 : last.finish) + "ms: " + path);
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1e6);
+    }
+
+    /**
+     * 依赖图的节点
+     */
+    private static final class Node {
+        final String beanName;
+        final List<Node> dependencies = new ArrayList<>();
+        final List<Node> dependents = new ArrayList<>();
+        /** 尚未创建完成的依赖数 */
+        final AtomicInteger pending = new AtomicInteger();
+        boolean sorted;
+        /** 创建耗时（纳秒） */
+        long duration;
+        /** 依赖链上的累计耗时（纳秒） */
+        long finish;
+        /** 关键路径上的前一个节点 */
+        Node critical;
+
+        Node(String beanName) {
+            this.beanName = beanName;
+        }
+    }
+
+}
@@ -1,23 +1,28 @@
 package com.ma.spring.framework.context;
 
+import com.ma.spring.framework.beans.BeansException;
 import com.ma.spring.framework.beans.config.BeanDefinition;
+import com.ma.spring.framework.beans.support.BeanPool;
 import com.ma.spring.framework.beans.support.BeanDefinitionReader;
 import com.ma.spring.framework.beans.support.DefaultListableBeanFactory;
+import com.ma.spring.framework.beans.support.RequestScope;
 import com.ma.spring.framework.core.BeanFactory;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Properties;
 
 /**
- *
+ * IoC容器的入口：读取配置、注册BeanDefinition、创建非延时加载的单例，Bean的查找委派给DefaultListableBeanFactory
  *
  * @author ma
  * @date 2021/4/26 22:55
  */
 public class ApplicationContext implements BeanFactory {
 
-    public Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+    /**
+     * 启动时并行创建单例的线程数
+     */
+    private static final String PARALLELISM_KEY = "context.parallelism";
 
     private DefaultListableBeanFactory registry = new DefaultListableBeanFactory();
 
@@ -33,23 +38,86 @@ public class ApplicationContext implements BeanFactory {
         // 3、将所有的配置信息缓存起来
         this.registry.doRegistBeanDefinition(beanDefinitions);
 
-        // 4、加载非延时加载的所有Bean
+        //  ================== IOC（Inversion of Control，控制反转）部分 ==================
+        /**
+         * IOC = DI + AOP
+         * IOC不是一种技术而是一种设计思想，它的作用/目的：解耦。
+         * IOC：对对象控制权的转移，从程序代码本身反转到了外部容器。
+         * DI：对象之间依赖关系由容器在运行期决定。
+         */
+        // 4、加载非延时加载的所有Bean（实例化并完成依赖注入）
         doLoadInstance();
     }
 
     private void doLoadInstance() {
-        // 循环调用getBean()方法
-
-
+        // 按依赖关系并行创建，并行度默认为CPU核数，可通过配置项context.parallelism修改
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        String configured = this.reader.getConfig().getProperty(PARALLELISM_KEY);
+        if (configured != null && !configured.trim().isEmpty()) {
+            try {
+                parallelism = Integer.parseInt(configured.trim());
+            } catch (NumberFormatException e) {
+                throw new BeansException("Invalid " + PARALLELISM_KEY + ": '" + configured + "', expected an integer", e);
+            }
+        }
+        this.registry.preInstantiateSingletons(parallelism);
     }
 
     @Override
     public Object getBean(Class beanClass) {
-        return null;
+        return this.registry.getBean(beanClass);
     }
 
     @Override
     public Object getBean(String beanName) {
-        return null;
+        return this.registry.getBean(beanName);
+    }
+
+    public String[] getBeanNamesForType(Class<?> type) {
+        return this.registry.getBeanNamesForType(type);
+    }
+
+    public Class<?> getType(String beanName) {
+        return this.registry.getType(beanName);
+    }
+
+    public String[] getBeanDefinitionNames() {
+        return this.registry.getBeanDefinitionNames();
+    }
+
+    public BeanDefinition getBeanDefinition(String beanName) {
+        return this.registry.getBeanDefinition(beanName);
     }
+
+    public int getBeanDefinitionCount() {
+        return this.registry.getBeanDefinitionCount();
+    }
+
+    /**
+     * 进入当前线程的请求作用域
+     *
+     * @return 外层的作用域，交给endRequestScope()恢复
+     */
+    public RequestScope beginRequestScope() {
+        return this.registry.beginRequestScope();
+    }
+
+    /**
+     * 离开当前线程的请求作用域
+     *
+     * @param previous beginRequestScope()的返回值
+     * @return 本次请求创建的作用域（由调用方close()），没有时返回null
+     */
+    public RequestScope endRequestScope(RequestScope previous) {
+        return this.registry.endRequestScope(previous);
+    }
+
+    public BeanPool getBeanPool(String beanName) {
+        return this.registry.getBeanPool(beanName);
+    }
+
+    public Properties getConfig() {
+        return this.reader.getConfig();
+    }
+
 }
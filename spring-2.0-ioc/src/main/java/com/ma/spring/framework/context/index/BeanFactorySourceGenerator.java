@@ -0,0 +1,330 @@
+package com.ma.spring.framework.context.index;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 为组件生成"类名__BeanFactory"源码（实现GeneratedBeanFactory）：用new创建Bean，直接给@Autowired字段赋值、调用@Autowired方法。
+ * <p>
+ * 1、生成的类与组件在同一个包中，可以访问非private的构造器、同包的字段和方法；
+ * 2、private字段、其他包中父类的非public字段，生成的类加载时取一次字段的setter句柄（static final MethodHandle），
+ *    之后每次创建Bean都用它赋值，不再getDeclaredField()、setAccessible()；
+ * 3、注入点按下标交给DependencyResolver查找，运行时按key（声明类#字段名、方法名）对应到InjectionMetadata的注入点，
+ *    @Autowired的名称、required和@Lazy都从注入点读取，解析出的beanName与反射注入共用；
+ * 4、组件类、无参构造器、注入的类型、@Autowired方法在包内不可访问时不生成，运行时整个Bean回退到反射。
+ *
+ * @author ma
+ * @date 2026/10/19 03:50
+ */
+final class BeanFactorySourceGenerator {
+
+    static final String GENERATED_BEAN_FACTORY = "com.ma.spring.framework.beans.support.GeneratedBeanFactory";
+
+    static final String BEANS_EXCEPTION = "com.ma.spring.framework.beans.BeansException";
+
+    /**
+     * 与GeneratedBeanFactory.CLASS_SUFFIX一致
+     */
+    static final String CLASS_SUFFIX = "__BeanFactory";
+
+    private final ProcessingEnvironment processingEnv;
+
+    BeanFactorySourceGenerator(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+    }
+
+    /**
+     * 生成组件的Bean工厂
+     *
+     * @param type 组件类
+     */
+    void generate(TypeElement type) {
+        Elements elements = processingEnv.getElementUtils();
+        PackageElement pkg = elements.getPackageOf(type);
+
+        // 1、检查能否在包内直接创建
+        String unsupported = this.checkInstantiable(type, pkg);
+        List<InjectionField> fields = new ArrayList<>();
+        if (unsupported == null) {
+            unsupported = this.collectFields(type, pkg, fields);
+        }
+        if (unsupported != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "No bean factory generated for " + type.getQualifiedName() + " (" + unsupported
+                            + "), reflection will be used", type);
+            return;
+        }
+
+        // 2、写出源码
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                + CLASS_SUFFIX;
+        String beanType = type.getQualifiedName().toString();
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * ").append(type.getSimpleName()).append("的Bean工厂（ComponentIndexProcessor编译期生成，请勿修改）\n")
+                .append(" */\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(simpleName).append(" implements ")
+                .append(GENERATED_BEAN_FACTORY).append(" {\n\n");
+        // 注入点：声明类#字段名（方法名），下标与populate()中的下标一致
+        source.append("    private static final String[] INJECTION_POINTS = {");
+        for (int i = 0; i < fields.size(); i++) {
+            InjectionField field = fields.get(i);
+            source.append(i == 0 ? "" : ", ").append(elements.getConstantExpression(
+                    field.declaringBinaryName + "#" + (field.method != null ? field.method : field.name)));
+        }
+        source.append("};\n\n");
+        // 不能直接赋值的字段：类加载时取一次setter句柄
+        boolean needsSetterHandle = false;
+        for (int i = 0; i < fields.size(); i++) {
+            InjectionField field = fields.get(i);
+            if (field.method == null && !field.direct) {
+                source.append("    private static final java.lang.invoke.MethodHandle SETTER_").append(i)
+                        .append(" = setter(").append(field.declaringType).append(".class, ")
+                        .append(elements.getConstantExpression(field.name)).append(");\n\n");
+                needsSetterHandle = true;
+            }
+        }
+        source.append("    @Override\n")
+                .append("    public Object instantiate() {\n")
+                .append("        return new ").append(beanType).append("();\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public String[] getInjectionPoints() {\n")
+                .append("        return INJECTION_POINTS.clone();\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void populate(Object bean, ").append(GENERATED_BEAN_FACTORY)
+                .append(".DependencyResolver resolver) {\n");
+        if (!fields.isEmpty()) {
+            source.append("        ").append(beanType).append(" instance = (").append(beanType).append(") bean;\n")
+                    .append("        Object value;\n");
+        }
+        for (int i = 0; i < fields.size(); i++) {
+            InjectionField field = fields.get(i);
+            source.append("        value = resolver.resolve(").append(i).append(");\n")
+                    .append("        if (value != null) {\n");
+            String target = field.declaringType.equals(beanType)
+                    ? "instance" : "((" + field.declaringType + ") instance)";
+            if (field.method != null) {
+                source.append("            ").append(target).append('.').append(field.method)
+                        .append("((").append(field.type).append(") value);\n");
+            } else if (field.direct) {
+                source.append("            ").append(target).append('.').append(field.name)
+                        .append(" = (").append(field.type).append(") value;\n");
+            } else {
+                source.append("            try {\n")
+                        .append("                SETTER_").append(i).append(".invokeExact((Object) instance, value);\n")
+                        .append("            } catch (Throwable e) {\n")
+                        .append("                throw new ").append(BEANS_EXCEPTION).append("(\"Cannot inject \" + INJECTION_POINTS[")
+                        .append(i).append("], e);\n")
+                        .append("            }\n");
+            }
+            source.append("        }\n");
+        }
+        source.append("    }\n");
+        if (needsSetterHandle) {
+            source.append("\n")
+                    .append("    private static java.lang.invoke.MethodHandle setter(Class<?> declaringClass, String name) {\n")
+                    .append("        try {\n")
+                    .append("            java.lang.reflect.Field field = declaringClass.getDeclaredField(name);\n")
+                    .append("            field.setAccessible(true);\n")
+                    .append("            return java.lang.invoke.MethodHandles.lookup().unreflectSetter(field)\n")
+                    .append("                    .asType(java.lang.invoke.MethodType.methodType(void.class, Object.class, Object.class));\n")
+                    .append("        } catch (ReflectiveOperationException e) {\n")
+                    .append("            throw new ExceptionInInitializerError(e);\n")
+                    .append("        }\n")
+                    .append("    }\n");
+        }
+        source.append("\n}\n");
+
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write " + qualifiedName + ": " + e, type);
+        }
+    }
+
+    /**
+     * @return 不能在包内直接创建的原因，可以时返回null
+     */
+    private String checkInstantiable(TypeElement type, PackageElement pkg) {
+        if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+            return "inner class";
+        }
+        if (!this.isAccessible(type, pkg)) {
+            return "class not accessible";
+        }
+        boolean hasConstructor = false;
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.CONSTRUCTOR) {
+                ExecutableElement constructor = (ExecutableElement) enclosed;
+                if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                    hasConstructor = true;
+                }
+            }
+        }
+        return hasConstructor ? null : "no accessible no-arg constructor";
+    }
+
+    /**
+     * 收集@Autowired字段、方法（子类在前，同一个类中先字段后方法，与反射注入的顺序一致）
+     *
+     * @return 不能生成的原因，可以时返回null
+     */
+    private String collectFields(TypeElement type, PackageElement pkg, List<InjectionField> fields) {
+        Elements elements = processingEnv.getElementUtils();
+        // 子类重写的方法：父类的同一方法不再注入
+        Set<String> methodSignatures = new HashSet<>();
+        TypeElement current = type;
+        while (current != null && !"java.lang.Object".contentEquals(current.getQualifiedName())) {
+            boolean samePackage = elements.getPackageOf(current).equals(pkg);
+            for (ElementKind kind : new ElementKind[]{ElementKind.FIELD, ElementKind.METHOD}) {
+                for (Element enclosed : current.getEnclosedElements()) {
+                    if (enclosed.getKind() != kind || enclosed.getModifiers().contains(Modifier.STATIC)) {
+                        continue;
+                    }
+                    if (ComponentIndexProcessor.findAnnotation(enclosed, ComponentIndexProcessor.AUTOWIRED) == null) {
+                        continue;
+                    }
+                    Set<Modifier> modifiers = enclosed.getModifiers();
+                    boolean accessible = !modifiers.contains(Modifier.PRIVATE)
+                            && (modifiers.contains(Modifier.PUBLIC) || samePackage);
+                    String method = null;
+                    String name = enclosed.getSimpleName().toString();
+                    TypeMirror injectedType;
+                    if (kind == ElementKind.METHOD) {
+                        List<? extends VariableElement> parameters = ((ExecutableElement) enclosed).getParameters();
+                        if (!methodSignatures.add(name + processingEnv.getTypeUtils().erasure(enclosed.asType()))) {
+                            continue;
+                        }
+                        if (parameters.size() != 1) {
+                            return "@Autowired method " + name + " must have exactly one parameter";
+                        }
+                        if (!accessible) {
+                            return "method " + name + " not accessible";
+                        }
+                        method = name;
+                        name = ComponentIndexProcessor.propertyName(name);
+                        injectedType = parameters.get(0).asType();
+                    } else {
+                        injectedType = enclosed.asType();
+                    }
+                    injectedType = processingEnv.getTypeUtils().erasure(injectedType);
+                    if (!this.isAccessible(injectedType, pkg)) {
+                        return "type of " + enclosed.getSimpleName() + " not accessible";
+                    }
+                    if (!this.isAccessible(current, pkg)) {
+                        return "declaring class of " + enclosed.getSimpleName() + " not accessible";
+                    }
+                    fields.add(new InjectionField(current.getQualifiedName().toString(),
+                            elements.getBinaryName(current).toString(), name, method,
+                            this.typeName(injectedType), accessible && !modifiers.contains(Modifier.FINAL)));
+                }
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return null;
+    }
+
+    /**
+     * 类型在包内能否引用（类字面量、强制转换）
+     */
+    private boolean isAccessible(TypeMirror type, PackageElement pkg) {
+        if (type.getKind().isPrimitive()) {
+            return true;
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return this.isAccessible(((ArrayType) type).getComponentType(), pkg);
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            return this.isAccessible((TypeElement) ((DeclaredType) type).asElement(), pkg);
+        }
+        return false;
+    }
+
+    private boolean isAccessible(TypeElement type, PackageElement pkg) {
+        Elements elements = processingEnv.getElementUtils();
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!e.getModifiers().contains(Modifier.PUBLIC) && !elements.getPackageOf(e).equals(pkg)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 源码中使用的类型名（已擦除泛型）
+     */
+    private String typeName(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return this.typeName(((ArrayType) type).getComponentType()) + "[]";
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        }
+        return type.getKind().name().toLowerCase();
+    }
+
+    /**
+     * 一个@Autowired字段或方法
+     */
+    private static final class InjectionField {
+        final String declaringType;
+        /** 声明类的二进制名（Class.getName()） */
+        final String declaringBinaryName;
+        /** 字段名或setter对应的属性名 */
+        final String name;
+        /** 方法名，字段时为null */
+        final String method;
+        final String type;
+        /** 生成的代码能否直接给字段赋值 */
+        final boolean direct;
+
+        InjectionField(String declaringType, String declaringBinaryName, String name, String method, String type,
+                       boolean direct) {
+            this.declaringType = declaringType;
+            this.declaringBinaryName = declaringBinaryName;
+            this.name = name;
+            this.method = method;
+            this.type = type;
+            this.direct = direct;
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.ma.spring.framework.context.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * 读取编译期生成的组件索引（META-INF/ma-spring.components），类路径中的每个jar、目录都可以有自己的索引
+ *
+ * @author ma
+ * @date 2026/10/19 03:10
+ */
+public final class CandidateComponentsIndex {
+
+    private final List<Entry> entries;
+
+    private CandidateComponentsIndex(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * 加载类路径中的全部组件索引
+     *
+     * @param classLoader 类加载器
+     * @return 组件索引，类路径中没有索引时返回null
+     * @throws IOException 读取索引失败
+     */
+    public static CandidateComponentsIndex load(ClassLoader classLoader) throws IOException {
+        Enumeration<URL> urls = classLoader.getResources(ComponentIndexProcessor.INDEX_LOCATION);
+        if (!urls.hasMoreElements()) {
+            return null;
+        }
+        List<Entry> entries = new ArrayList<>();
+        while (urls.hasMoreElements()) {
+            URL url = urls.nextElement();
+            try (InputStream is = url.openStream();
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] columns = line.split("\t");
+                    if (columns.length != 5 && columns.length != 7) {
+                        throw new IOException("Malformed component index entry in " + url + ": " + line);
+                    }
+                    entries.add(new Entry(columns));
+                }
+            }
+        }
+        return new CandidateComponentsIndex(entries);
+    }
+
+    /**
+     * 包（及其子包）下的组件
+     *
+     * @param basePackage 包名
+     * @return 组件列表
+     */
+    public List<Entry> getCandidates(String basePackage) {
+        String prefix = basePackage + ".";
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.className.startsWith(prefix)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 索引中的一个组件
+     */
+    public static final class Entry {
+
+        private final String beanName;
+
+        private final String className;
+
+        /** 组件注解的简单类名：Controller、Service */
+        private final String stereotype;
+
+        private final boolean lazyInit;
+
+        /** 作用域：singleton、prototype、request */
+        private final String scope;
+
+        /** request作用域的对象池大小，0表示不使用对象池 */
+        private final int poolSize;
+
+        /** @Autowired字段、方法：字段名=类型、方法名()=类型 */
+        private final List<String> injectionPoints;
+
+        Entry(String[] columns) {
+            this.beanName = columns[0];
+            this.className = columns[1];
+            this.stereotype = columns[2];
+            this.lazyInit = Boolean.parseBoolean(columns[3]);
+            this.injectionPoints = "-".equals(columns[4])
+                    ? Collections.emptyList()
+                    : Collections.unmodifiableList(Arrays.asList(columns[4].split(",")));
+            // 旧版本的索引没有作用域
+            this.scope = columns.length > 5 ? columns[5] : "singleton";
+            this.poolSize = columns.length > 6 ? Integer.parseInt(columns[6]) : 0;
+        }
+
+        public String getBeanName() {
+            return beanName;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getStereotype() {
+            return stereotype;
+        }
+
+        public boolean isLazyInit() {
+            return lazyInit;
+        }
+
+        public List<String> getInjectionPoints() {
+            return injectionPoints;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+    }
+
+}
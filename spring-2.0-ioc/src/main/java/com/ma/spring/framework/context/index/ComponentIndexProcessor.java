@@ -0,0 +1,228 @@
+package com.ma.spring.framework.context.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 组件索引的注解处理器：编译期找出@Controller、@Service组件，写入META-INF/ma-spring.components，
+ * 启动时BeanDefinitionReader直接读取索引，不再扫描类路径、加载每一个类。
+ * <p>
+ * 索引每行一个组件，字段以Tab分隔：beanName、类名、组件注解、是否延时加载、注入点（字段名=类型、方法名()=类型，逗号分隔）、
+ * 作用域、对象池大小。
+ * 同时为每个组件生成Bean工厂（见BeanFactorySourceGenerator），运行时不需要反射创建、注入。
+ * 处理器在pom.xml中先于其他源码单独编译，只依赖javax.annotation.processing，注解按全限定名匹配。
+ *
+ * @author ma
+ * @date 2026/10/19 03:10
+ */
+@SupportedAnnotationTypes("*")
+public class ComponentIndexProcessor extends AbstractProcessor {
+
+    /**
+     * 索引文件在类路径中的位置
+     */
+    public static final String INDEX_LOCATION = "META-INF/ma-spring.components";
+
+    static final String CONTROLLER = "com.ma.spring.framework.annotation.Controller";
+    static final String SERVICE = "com.ma.spring.framework.annotation.Service";
+    static final String LAZY = "com.ma.spring.framework.annotation.Lazy";
+    static final String AUTOWIRED = "com.ma.spring.framework.annotation.Autowired";
+    static final String SCOPE = "com.ma.spring.framework.annotation.Scope";
+
+    /**
+     * 类名 -> 索引行（按类名排序，保证输出稳定）
+     */
+    private final Map<String, String> entries = new TreeMap<>();
+
+    private BeanFactorySourceGenerator beanFactoryGenerator;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.beanFactoryGenerator = new BeanFactorySourceGenerator(processingEnv);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getRootElements()) {
+            this.collect(element);
+        }
+        if (roundEnv.processingOver()) {
+            this.writeIndex();
+        }
+        // 不独占任何注解
+        return false;
+    }
+
+    /**
+     * 收集组件类（包括嵌套的静态类）
+     */
+    private void collect(Element element) {
+        if (element.getKind() != ElementKind.CLASS) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.CLASS && enclosed.getModifiers().contains(Modifier.STATIC)) {
+                this.collect(enclosed);
+            }
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return;
+        }
+        String stereotype = null;
+        String beanName = "";
+        boolean lazy = false;
+        String scope = "singleton";
+        int poolSize = 0;
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            String name = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+            if (CONTROLLER.equals(name) || SERVICE.equals(name)) {
+                stereotype = name.substring(name.lastIndexOf('.') + 1);
+                Object value = annotationValue(annotation, "value");
+                beanName = value == null ? "" : value.toString().trim();
+            } else if (LAZY.equals(name)) {
+                Object value = annotationValue(annotation, "value");
+                lazy = value == null || Boolean.TRUE.equals(value);
+            } else if (SCOPE.equals(name)) {
+                Object value = annotationValue(annotation, "value");
+                Object size = annotationValue(annotation, "poolSize");
+                scope = value == null ? scope : value.toString().trim();
+                poolSize = size == null ? 0 : (Integer) size;
+            }
+        }
+        if (stereotype == null) {
+            return;
+        }
+        String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+        if (beanName.isEmpty()) {
+            beanName = toLowerFirstCase(type.getSimpleName().toString());
+        }
+        List<String> injectionPoints = this.injectionPoints(type);
+        beanFactoryGenerator.generate(type);
+        entries.put(className, beanName + '\t' + className + '\t' + stereotype + '\t' + lazy + '\t'
+                + (injectionPoints.isEmpty() ? "-" : String.join(",", injectionPoints))
+                + '\t' + scope + '\t' + poolSize);
+    }
+
+    /**
+     * @Autowired字段、方法（包括父类的）：字段名=擦除泛型后的类型，方法名()=参数类型
+     */
+    private List<String> injectionPoints(TypeElement type) {
+        List<String> result = new ArrayList<>();
+        TypeElement current = type;
+        while (current != null && !"java.lang.Object".contentEquals(current.getQualifiedName())) {
+            for (ElementKind kind : new ElementKind[]{ElementKind.FIELD, ElementKind.METHOD}) {
+                for (Element enclosed : current.getEnclosedElements()) {
+                    if (enclosed.getKind() != kind || enclosed.getModifiers().contains(Modifier.STATIC)
+                            || findAnnotation(enclosed, AUTOWIRED) == null) {
+                        continue;
+                    }
+                    if (kind == ElementKind.FIELD) {
+                        result.add(enclosed.getSimpleName() + "="
+                                + processingEnv.getTypeUtils().erasure(enclosed.asType()));
+                    } else {
+                        List<? extends VariableElement> parameters = ((ExecutableElement) enclosed).getParameters();
+                        if (parameters.size() == 1) {
+                            result.add(enclosed.getSimpleName() + "()="
+                                    + processingEnv.getTypeUtils().erasure(parameters.get(0).asType()));
+                        }
+                    }
+                }
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return result;
+    }
+
+    static AnnotationMirror findAnnotation(Element element, String annotationType) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(annotationType)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * setter方法对应的属性名（setDemoService -> demoService）
+     */
+    static String propertyName(String methodName) {
+        if (methodName.length() > 3 && methodName.startsWith("set")) {
+            return toLowerFirstCase(methodName.substring(3));
+        }
+        return methodName;
+    }
+
+    static Object annotationValue(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject file = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (Writer writer = file.openWriter()) {
+                writer.write("# beanName\tclassName\tstereotype\tlazy\tinjectionPoints\tscope\tpoolSize\n");
+                for (String line : entries.values()) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write " + INDEX_LOCATION + ": " + e);
+        }
+    }
+
+    /**
+     * 首字母转小写（与BeanDefinitionReader的默认beanName一致）
+     */
+    private static String toLowerFirstCase(String simpleName) {
+        if (Character.isLowerCase(simpleName.charAt(0))) {
+            return simpleName;
+        }
+        char[] charArray = simpleName.toCharArray();
+        charArray[0] = Character.toLowerCase(charArray[0]);
+        return new String(charArray);
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.ma.spring.framework.core.convert;
+
+/**
+ * 自定义转化器的注册入口，通过 META-INF/services/com.ma.spring.framework.core.convert.ConverterRegistrar
+ * 声明实现类，TypeConverterRegistry创建时由ServiceLoader加载。
+ *
+ * @author ma
+ * @date 2026/10/18 15:14
+ */
+public interface ConverterRegistrar {
+
+    /**
+     * 注册转化器
+     *
+     * @param registry 转化器注册表
+     */
+    void registerConverters(TypeConverterRegistry registry);
+
+}
@@ -0,0 +1,37 @@
+package com.ma.spring.framework.core.convert;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 枚举转化器：启动时预先建立 name -> 常量 的映射表
+ *
+ * @author ma
+ * @date 2026/10/18 15:30
+ */
+public final class EnumConverter<E extends Enum<E>> implements TypeConverter<E> {
+
+    private final Class<E> enumType;
+
+    private final Map<String, E> constants = new HashMap<>();
+
+    public EnumConverter(Class<E> enumType) {
+        this.enumType = enumType;
+        for (E constant : enumType.getEnumConstants()) {
+            constants.put(constant.name(), constant);
+        }
+    }
+
+    @Override
+    public E convert(String source) {
+        E constant = constants.get(source);
+        if (constant == null) {
+            constant = constants.get(source.trim());
+        }
+        if (constant == null) {
+            throw new IllegalArgumentException("No enum constant " + enumType.getName() + "." + source);
+        }
+        return constant;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.ma.spring.framework.core.convert;
+
+/**
+ * 数字解析：直接遍历原始字符串的字符，忽略首尾空白，不产生trim()后的中间字符串
+ *
+ * @author ma
+ * @date 2026/10/18 15:20
+ */
+public final class NumberParser {
+
+    private NumberParser() {
+    }
+
+    public static int parseInt(String s) {
+        long value = parseLong(s);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of range for int: \"" + s + "\"");
+        }
+        return (int) value;
+    }
+
+    public static long parseLong(String s) {
+        int start = 0;
+        int end = s.length();
+        while (start < end && Character.isWhitespace(s.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(s.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            throw new NumberFormatException("For input string: \"" + s + "\"");
+        }
+        boolean negative = false;
+        char first = s.charAt(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++start == end) {
+                throw new NumberFormatException("For input string: \"" + s + "\"");
+            }
+        }
+        // 按负数累加，可以表示Long.MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multmin) {
+                throw new NumberFormatException("For input string: \"" + s + "\"");
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new NumberFormatException("For input string: \"" + s + "\"");
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    public static double parseDouble(String s) {
+        // Double.parseDouble内部的trim()在无空白时返回原字符串
+        return Double.parseDouble(s);
+    }
+
+    /**
+     * 解析布尔值：true/on/yes/1为真，false/off/no/0为假（忽略大小写）
+     */
+    public static boolean parseBoolean(String s) {
+        String v = s;
+        if (!v.isEmpty() && (Character.isWhitespace(v.charAt(0)) || Character.isWhitespace(v.charAt(v.length() - 1)))) {
+            v = v.trim();
+        }
+        if ("true".equalsIgnoreCase(v) || "on".equalsIgnoreCase(v) || "yes".equalsIgnoreCase(v) || "1".equals(v)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(v) || "off".equalsIgnoreCase(v) || "no".equalsIgnoreCase(v) || "0".equals(v)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Invalid boolean value: \"" + s + "\"");
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.ma.spring.framework.core.convert;
+
+/**
+ * 类型转化器SPI：把单个字符串值转化为目标类型
+ *
+ * @author ma
+ * @date 2026/10/18 15:10
+ */
+@FunctionalInterface
+public interface TypeConverter<T> {
+
+    /**
+     * 类型转化
+     *
+     * @param source 转化前的值
+     * @return 转化后的值
+     * @throws Exception 格式错误等转化异常
+     */
+    T convert(String source) throws Exception;
+
+}
@@ -0,0 +1,149 @@
+package com.ma.spring.framework.core.convert;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类型转化器注册表
+ * <p>
+ * 内置String、int/long/double/boolean（及包装类型）、枚举、UUID、LocalDate的转化器，
+ * 并通过ServiceLoader加载ConverterRegistrar注册的自定义转化器。
+ * 形参的转化器在Handler创建时解析一次，请求时不再查表。
+ *
+ * @author ma
+ * @date 2026/10/18 15:40
+ */
+public class TypeConverterRegistry {
+
+    private final Map<Class<?>, TypeConverter<?>> converters = new ConcurrentHashMap<>();
+
+    public TypeConverterRegistry() {
+        registerDefaultConverters();
+        for (ConverterRegistrar registrar : ServiceLoader.load(ConverterRegistrar.class, getClassLoader())) {
+            registrar.registerConverters(this);
+        }
+    }
+
+    private void registerDefaultConverters() {
+        register(String.class, s -> s);
+        TypeConverter<Integer> intConverter = s -> NumberParser.parseInt(s);
+        register(int.class, intConverter);
+        register(Integer.class, intConverter);
+        TypeConverter<Long> longConverter = s -> NumberParser.parseLong(s);
+        register(long.class, longConverter);
+        register(Long.class, longConverter);
+        TypeConverter<Double> doubleConverter = s -> NumberParser.parseDouble(s);
+        register(double.class, doubleConverter);
+        register(Double.class, doubleConverter);
+        TypeConverter<Boolean> booleanConverter = s -> NumberParser.parseBoolean(s);
+        register(boolean.class, booleanConverter);
+        register(Boolean.class, booleanConverter);
+        register(UUID.class, s -> UUID.fromString(s.trim()));
+        register(LocalDate.class, s -> LocalDate.parse(s.trim()));
+    }
+
+    /**
+     * 注册（覆盖）转化器
+     *
+     * @param type 目标类型
+     * @param converter 转化器
+     */
+    public <T> void register(Class<T> type, TypeConverter<? extends T> converter) {
+        converters.put(type, converter);
+    }
+
+    /**
+     * 获取单值转化器
+     *
+     * @param type 目标类型
+     * @return 转化器，不支持的类型返回null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TypeConverter<?> getConverter(Class<?> type) {
+        TypeConverter<?> converter = converters.get(type);
+        if (converter == null && type.isEnum()) {
+            converter = converters.computeIfAbsent(type, t -> new EnumConverter(t));
+        }
+        return converter;
+    }
+
+    /**
+     * 根据形参类型解析多值转化器
+     * 1、数组：每个值逐个转化；
+     * 2、集合：按泛型参数逐个转化，生成ArrayList或LinkedHashSet，形参类型必须能接收二者之一
+     *    （List、Collection、ArrayList、Set、HashSet等），LinkedList、TreeSet、Deque等在启动时拒绝；
+     * 3、单值：String多个值用","拼接，其他类型取第一个值。
+     *
+     * @param type 形参类型
+     * @param genericType 形参泛型类型
+     * @return 转化器
+     * @throws IllegalArgumentException 不支持的类型
+     */
+    public ValuesConverter getValuesConverter(Class<?> type, Type genericType) {
+        if (type.isArray()) {
+            Class<?> componentType = type.getComponentType();
+            TypeConverter<?> converter = requireConverter(componentType);
+            return values -> {
+                Object array = Array.newInstance(componentType, values.length);
+                for (int i = 0; i < values.length; i++) {
+                    Array.set(array, i, converter.convert(values[i]));
+                }
+                return array;
+            };
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            Class<?> elementType = String.class;
+            if (genericType instanceof ParameterizedType) {
+                Type arg = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+                if (arg instanceof Class) {
+                    elementType = (Class<?>) arg;
+                }
+            }
+            boolean set;
+            if (type.isAssignableFrom(ArrayList.class)) {
+                set = false;
+            } else if (type.isAssignableFrom(LinkedHashSet.class)) {
+                set = true;
+            } else {
+                throw new IllegalArgumentException("Unsupported collection type " + type.getName()
+                        + ", declare the parameter as List, Set or Collection");
+            }
+            TypeConverter<?> converter = requireConverter(elementType);
+            return values -> {
+                Collection<Object> collection = set ? new LinkedHashSet<>() : new ArrayList<>(values.length);
+                for (String value : values) {
+                    collection.add(converter.convert(value));
+                }
+                return collection;
+            };
+        }
+        TypeConverter<?> converter = requireConverter(type);
+        if (type == String.class) {
+            return values -> values.length == 1 ? values[0] : String.join(",", values);
+        }
+        return values -> converter.convert(values[0]);
+    }
+
+    private TypeConverter<?> requireConverter(Class<?> type) {
+        TypeConverter<?> converter = getConverter(type);
+        if (converter == null) {
+            throw new IllegalArgumentException("No TypeConverter registered for " + type.getName());
+        }
+        return converter;
+    }
+
+    private static ClassLoader getClassLoader() {
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        return cl != null ? cl : TypeConverterRegistry.class.getClassLoader();
+    }
+
+}
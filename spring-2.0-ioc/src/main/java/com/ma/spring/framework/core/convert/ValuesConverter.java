@@ -0,0 +1,22 @@
+package com.ma.spring.framework.core.convert;
+
+/**
+ * 多值转化器：直接处理getParameterMap()中的原始String[]，
+ * 由TypeConverterRegistry根据形参类型（单值、数组、List）在启动时解析出来。
+ *
+ * @author ma
+ * @date 2026/10/18 15:12
+ */
+@FunctionalInterface
+public interface ValuesConverter {
+
+    /**
+     * 类型转化
+     *
+     * @param values 原始值（非空数组）
+     * @return 转化后的值
+     * @throws Exception 转化异常
+     */
+    Object convert(String[] values) throws Exception;
+
+}
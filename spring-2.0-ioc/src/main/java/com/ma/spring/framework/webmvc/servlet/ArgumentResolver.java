@@ -0,0 +1,25 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 方法参数解析器：Handler创建时为每个形参预先编译一个解析器，
+ * 请求时按参数下标顺序调用即可得到实参列表。
+ *
+ * @author ma
+ * @date 2026/10/18 13:40
+ */
+public interface ArgumentResolver {
+
+    /**
+     * 解析实参
+     *
+     * @param req 请求
+     * @param resp 响应
+     * @return 实参
+     * @throws Exception 参数转化异常
+     */
+    Object resolve(HttpServletRequest req, HttpServletResponse resp) throws Exception;
+
+}
@@ -0,0 +1,422 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 异步返回值处理：映射方法返回CompletionStage（CompletableFuture）或Callable时，
+ * 调用req.startAsync()释放容器线程，结果就绪后在完成它的线程上写出响应再complete()。
+ * 正常完成、超时、客户端断开由AsyncCompletion保证只有一个生效，AsyncContext只complete()一次。
+ * <p>
+ * 返回ResponseEmitter时，在单独的执行器中取出推送的元素流式写出，直到推送结束或客户端断开：
+ * 推送持续时间由业务决定，drain期间线程一直阻塞，不能占用Callable的固定大小线程池，
+ * JVM支持虚拟线程时每个推送一个虚拟线程，否则使用与Callable线程池同样大小（asyncPoolSize）的线程池，
+ * 线程都在推送时不排队，直接响应503，同时推送的客户端再多也不会无限创建平台线程。
+ * Callable在专用线程池中执行；超时时间、线程池大小由DispatcherServlet的初始化参数
+ * asyncTimeout、asyncPoolSize配置。容器不支持异步时退化为在当前线程等待结果。
+ *
+ * @author ma
+ * @date 2026/10/18 22:20
+ */
+final class AsyncHandlerSupport {
+
+    /** 默认超时时间（毫秒） */
+    static final long DEFAULT_TIMEOUT = 30000L;
+
+    /** 请求属性：已经开启的异步处理（AsyncCompletion） */
+    static final String ASYNC_COMPLETION_ATTRIBUTE = AsyncHandlerSupport.class.getName() + ".ASYNC_COMPLETION";
+
+    private final long timeout;
+
+    private final ExecutorService executor;
+
+    /** 推送式返回值的执行器（虚拟线程，或最多poolSize个线程、不排队的线程池） */
+    private final ExecutorService emitterExecutor;
+
+    /** 异步结果的超时计时 */
+    private final ScheduledThreadPoolExecutor timer;
+
+    private final ResultWriter resultWriter;
+
+    private final ErrorLogger errorLogger;
+
+    /**
+     * 结果就绪后的写出回调（由DispatcherServlet提供，与同步请求的处理保持一致）
+     */
+    interface ResultWriter {
+
+        void writeResult(HttpServletRequest req, HttpServletResponse resp, Object result,
+                         ResponseBodyWriter.ConstantBodyCache cache) throws Exception;
+
+        void writeError(HttpServletRequest req, HttpServletResponse resp, Throwable error) throws IOException;
+    }
+
+    AsyncHandlerSupport(long timeout, int poolSize, ResultWriter resultWriter, ErrorLogger errorLogger) {
+        this.timeout = timeout;
+        this.resultWriter = resultWriter;
+        this.errorLogger = errorLogger;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "async-handler-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ((ThreadPoolExecutor) this.executor).allowCoreThreadTimeOut(true);
+        this.emitterExecutor = newEmitterExecutor(poolSize);
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "async-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 结果按时就绪时取消的计时任务立即移出队列
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    private static ExecutorService newEmitterExecutor(int poolSize) {
+        ExecutorService virtual = VirtualThreadExecutor.newVirtualThreadPerTaskExecutor();
+        if (virtual != null) {
+            return virtual;
+        }
+        AtomicInteger sequence = new AtomicInteger();
+        // 推送可能持续很久，排队等待的推送迟迟得不到线程，所以不排队：线程都在推送时拒绝
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "response-emitter-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 是否为异步返回值
+     *
+     * @param returnValue 返回值
+     * @return 是返回true
+     */
+    static boolean isAsyncResult(Object returnValue) {
+        return returnValue instanceof CompletionStage || returnValue instanceof Callable
+                || returnValue instanceof ResponseEmitter;
+    }
+
+    /**
+     * 开始异步处理
+     *
+     * @param req 请求
+     * @param resp 响应
+     * @param returnValue 异步返回值
+     * @param cache 映射方法的常量缓存
+     * @return 异步处理接管了响应、由本类负责complete()时返回true；已经在当前线程处理完毕（容器不支持异步）返回false。
+     * 抛出异常时仍由调用方负责
+     */
+    boolean handle(HttpServletRequest req, HttpServletResponse resp, Object returnValue,
+                   ResponseBodyWriter.ConstantBodyCache cache) throws Exception {
+        if (returnValue instanceof ResponseEmitter) {
+            return this.handleEmitter(req, resp, (ResponseEmitter) returnValue);
+        }
+        CompletionStage<?> stage;
+        if (returnValue instanceof CompletionStage) {
+            stage = (CompletionStage<?>) returnValue;
+        } else {
+            Callable<?> callable = (Callable<?>) returnValue;
+            stage = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return callable.call();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+
+        if (!req.isAsyncSupported()) {
+            // 容器（或过滤器链）不支持异步，在当前线程等待结果
+            this.await(req, resp, stage.toCompletableFuture(), cache);
+            return false;
+        }
+
+        AsyncCompletion completion = startAsync(req, resp);
+        completion.cancelAction = () -> stage.toCompletableFuture().cancel(true);
+        if (timeout > 0) {
+            completion.timeoutTask = timer.schedule(completion::timeout, timeout, TimeUnit.MILLISECONDS);
+        }
+        stage.whenComplete((result, error) -> {
+            // 超时、客户端断开和正常完成只能有一个写出响应
+            if (!completion.tryFinish()) {
+                return;
+            }
+            try {
+                this.complete(req, resp, result, error, cache);
+            } finally {
+                completion.complete();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 推送式返回值：推送持续时间由业务决定，不设超时；客户端断开时取消推送
+     */
+    private boolean handleEmitter(HttpServletRequest req, HttpServletResponse resp, ResponseEmitter emitter) {
+        if (!req.isAsyncSupported()) {
+            StreamingResponseWriter.drain(req, resp, emitter, errorLogger);
+            return false;
+        }
+        AsyncCompletion completion = startAsync(req, resp);
+        completion.cancelAction = emitter::cancel;
+        try {
+            emitterExecutor.execute(() -> {
+                try {
+                    StreamingResponseWriter.drain(req, resp, emitter, errorLogger);
+                } catch (RuntimeException e) {
+                    // 与同步请求一样交给异常处理（记录日志，响应头未发出时输出500）
+                    this.complete(req, resp, null, e, null);
+                } finally {
+                    completion.finish();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 推送线程已满（或停机中）：取消推送，唤醒阻塞在send()上的业务线程
+            emitter.cancel();
+            if (completion.tryFinish()) {
+                try {
+                    resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many streaming responses");
+                } catch (IOException ignored) {
+                    // 客户端已断开
+                } finally {
+                    completion.complete();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 开启异步处理：虚拟线程模式下请求在容器线程中已经开启，沿用同一个AsyncCompletion
+     *
+     * @param req 请求
+     * @param resp 响应
+     * @return 异步处理的完成状态
+     */
+    static AsyncCompletion startAsync(HttpServletRequest req, HttpServletResponse resp) {
+        AsyncCompletion completion = getCompletion(req);
+        if (completion != null && req.isAsyncStarted()) {
+            return completion;
+        }
+        AsyncContext asyncContext = req.startAsync(req, resp);
+        // setTimeout()、addListener()只能在容器分发返回之前调用，此时还不知道映射方法的返回值，
+        // 容器不计时，异步结果的超时由timer计时
+        asyncContext.setTimeout(0);
+        completion = new AsyncCompletion(asyncContext, resp);
+        asyncContext.addListener(completion);
+        req.setAttribute(ASYNC_COMPLETION_ATTRIBUTE, completion);
+        return completion;
+    }
+
+    /**
+     * @param req 请求
+     * @return 请求已经开启的异步处理，没有开启时返回null
+     */
+    static AsyncCompletion getCompletion(HttpServletRequest req) {
+        return (AsyncCompletion) req.getAttribute(ASYNC_COMPLETION_ATTRIBUTE);
+    }
+
+    private void await(HttpServletRequest req, HttpServletResponse resp, CompletableFuture<?> future,
+                       ResponseBodyWriter.ConstantBodyCache cache) throws Exception {
+        Object result;
+        try {
+            // 与异步处理一致：timeout不大于0表示不限时
+            result = timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Async handler timeout");
+            return;
+        } catch (ExecutionException e) {
+            this.complete(req, resp, null, e.getCause(), cache);
+            return;
+        }
+        this.complete(req, resp, result, null, cache);
+    }
+
+    private void complete(HttpServletRequest req, HttpServletResponse resp, Object result, Throwable error,
+                          ResponseBodyWriter.ConstantBodyCache cache) {
+        try {
+            if (error != null) {
+                resultWriter.writeError(req, resp, unwrap(error));
+            } else {
+                resultWriter.writeResult(req, resp, result, cache);
+            }
+        } catch (Exception e) {
+            try {
+                resultWriter.writeError(req, resp, e);
+            } catch (IOException ignored) {
+                // 客户端已断开
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+        emitterExecutor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * 一次异步处理的完成状态：正常完成、超时、客户端断开只有一个生效，AsyncContext只complete()一次。
+     * 在容器线程中开启异步时注册为监听器。
+     */
+    static final class AsyncCompletion implements AsyncListener {
+
+        /** 容器已经回调onComplete()的标记 */
+        private static final Runnable COMPLETED = () -> {
+        };
+
+        private final AsyncContext asyncContext;
+
+        private final HttpServletResponse resp;
+
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        /** 超时或客户端断开时取消异步结果 */
+        volatile Runnable cancelAction;
+
+        /** 超时计时任务，没有超时时为null */
+        volatile ScheduledFuture<?> timeoutTask;
+
+        /** 容器回调onComplete()后执行的操作，回调之后为COMPLETED */
+        private final AtomicReference<Runnable> afterCompletion = new AtomicReference<>();
+
+        private AsyncCompletion(AsyncContext asyncContext, HttpServletResponse resp) {
+            this.asyncContext = asyncContext;
+            this.resp = resp;
+        }
+
+        /**
+         * 获得写出响应、complete()的权利，只有第一个调用者返回true
+         */
+        boolean tryFinish() {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            ScheduledFuture<?> task = timeoutTask;
+            if (task != null) {
+                task.cancel(false);
+            }
+            return true;
+        }
+
+        void complete() {
+            asyncContext.complete();
+        }
+
+        /**
+         * 没有被超时、客户端断开抢先时complete()
+         */
+        void finish() {
+            if (this.tryFinish()) {
+                this.complete();
+            }
+        }
+
+        void timeout() {
+            if (!this.tryFinish()) {
+                return;
+            }
+            try {
+                this.cancel();
+                if (!resp.isCommitted()) {
+                    resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Async handler timeout");
+                }
+            } catch (IOException | IllegalStateException ignored) {
+                // 客户端已断开
+            } finally {
+                this.complete();
+            }
+        }
+
+        /**
+         * 异步处理结束（容器回调onComplete()，包括超时、客户端断开）后执行，已经结束时立即执行
+         *
+         * @param action 操作，例如归还request作用域借出的实例
+         */
+        void runAfterCompletion(Runnable action) {
+            while (true) {
+                Runnable current = afterCompletion.get();
+                if (current == COMPLETED) {
+                    action.run();
+                    return;
+                }
+                Runnable next = current == null ? action : () -> {
+                    current.run();
+                    action.run();
+                };
+                if (afterCompletion.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+
+        private void cancel() {
+            Runnable action = cancelAction;
+            if (action != null) {
+                action.run();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            this.timeout();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // 客户端断开：由容器complete()
+            if (this.tryFinish()) {
+                this.cancel();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            Runnable action = afterCompletion.getAndSet(COMPLETED);
+            if (action != null) {
+                action.run();
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 无法绑定的形参：引用类型传null，基本类型传默认值（避免反射调用时拆箱失败）
+ *
+ * @author ma
+ * @date 2026/10/18 13:44
+ */
+public final class DefaultValueArgumentResolver implements ArgumentResolver {
+
+    private static final DefaultValueArgumentResolver NULL = new DefaultValueArgumentResolver(null);
+
+    private final Object defaultValue;
+
+    private DefaultValueArgumentResolver(Object defaultValue) {
+        this.defaultValue = defaultValue;
+    }
+
+    /**
+     * 根据形参类型获取解析器
+     *
+     * @param type 形参类型
+     * @return 解析器
+     */
+    public static DefaultValueArgumentResolver of(Class<?> type) {
+        return type.isPrimitive() ? new DefaultValueArgumentResolver(defaultValue(type)) : NULL;
+    }
+
+    /**
+     * 基本类型的默认值
+     *
+     * @param type 类型
+     * @return 默认值，非基本类型返回null
+     */
+    public static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return Boolean.FALSE;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0F;
+        } else if (type == double.class) {
+            return 0D;
+        }
+        return null;
+    }
+
+    @Override
+    public Object resolve(HttpServletRequest req, HttpServletResponse resp) {
+        return defaultValue;
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.util.Arrays;
+
+/**
+ * 线程封闭的请求分发上下文：复用实参数组、请求路径和字符缓冲区，
+ * 常见请求在稳定状态下分发时不再分配这些临时对象。
+ * <p>
+ * 同一线程嵌套分发（如include另一个*.do）时上下文已被占用，此时临时创建一个新的上下文；
+ * 虚拟线程不会被复用，也直接创建新的上下文，不放入ThreadLocal。
+ *
+ * @author ma
+ * @date 2026/10/18 16:20
+ */
+final class DispatchContext {
+
+    private static final ThreadLocal<DispatchContext> CONTEXT = ThreadLocal.withInitial(DispatchContext::new);
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    /** 复用实参数组的最大参数个数 */
+    private static final int MAX_POOLED_ARITY = 16;
+
+    /** 合并"/"的字符缓冲区最大长度，过长的请求路径不缓存缓冲区 */
+    private static final int MAX_PATH_BUFFER = 1024;
+
+    /** 按参数个数复用的实参数组 */
+    private final Object[][] argumentArrays = new Object[MAX_POOLED_ARITY + 1][];
+
+    private final RequestPath path = new RequestPath();
+
+    private char[] pathBuffer = new char[128];
+
+    /** 本次分发使用的实参数组，release时清空 */
+    private Object[] arguments;
+
+    private boolean active;
+
+    private DispatchContext() {
+    }
+
+    /**
+     * 获取当前线程的分发上下文
+     *
+     * @return 上下文
+     */
+    static DispatchContext acquire() {
+        if (VirtualThreadExecutor.isVirtualThread()) {
+            DispatchContext context = new DispatchContext();
+            context.active = true;
+            return context;
+        }
+        DispatchContext context = CONTEXT.get();
+        if (context.active) {
+            context = new DispatchContext();
+        }
+        context.active = true;
+        return context;
+    }
+
+    /**
+     * 规范化请求路径（复用路径对象和字符缓冲区）
+     *
+     * @param uri 请求的绝对路径
+     * @param contextPath 上下文路径
+     * @return 路径视图，release之前有效
+     */
+    RequestPath parsePath(String uri, String contextPath) {
+        if (uri.length() > pathBuffer.length && uri.length() <= MAX_PATH_BUFFER) {
+            pathBuffer = new char[Integer.highestOneBit(uri.length()) << 1];
+        }
+        return path.reset(uri, contextPath, pathBuffer);
+    }
+
+    /**
+     * 获取实参数组
+     *
+     * @param arity 参数个数
+     * @return 实参数组，release之前有效
+     */
+    Object[] arguments(int arity) {
+        if (arity == 0) {
+            return NO_ARGS;
+        }
+        if (arity > MAX_POOLED_ARITY) {
+            return new Object[arity];
+        }
+        Object[] args = argumentArrays[arity];
+        if (args == null) {
+            args = argumentArrays[arity] = new Object[arity];
+        }
+        arguments = args;
+        return args;
+    }
+
+    /**
+     * 分发结束：清空实参引用，避免线程持有请求对象
+     */
+    void release() {
+        if (arguments != null) {
+            Arrays.fill(arguments, null);
+            arguments = null;
+        }
+        path.reset("", null, null);
+        active = false;
+    }
+
+}
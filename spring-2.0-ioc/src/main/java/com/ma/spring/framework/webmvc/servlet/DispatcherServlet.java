@@ -1,22 +1,25 @@
 package com.ma.spring.framework.webmvc.servlet;
 
 import com.ma.spring.framework.annotation.*;
+import com.ma.spring.framework.beans.BeansException;
+import com.ma.spring.framework.beans.config.BeanDefinition;
+import com.ma.spring.framework.beans.support.RequestScope;
 import com.ma.spring.framework.context.ApplicationContext;
+import com.ma.spring.framework.core.convert.TypeConverterRegistry;
 
 import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.net.URL;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.regex.Matcher;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.Pattern;
 
 /**
@@ -28,167 +31,325 @@ import java.util.regex.Pattern;
 public class DispatcherServlet extends HttpServlet {
 
     /**
-     * application.properties配置文件
+     * 为什么不用Map？答：用Map的话key只能是URL，Handler本身功能就是URL和Method对应关系，已经具备Map的功能。
      */
-    private Properties contextConfig = new Properties();
+    private List<Handler> handlerMapping = new ArrayList<>();
 
     /**
-     * 扫描包下的所有类全限定名（享元模式，缓存）
+     * 由handlerMapping编译出的路由表：按请求方式分表，字面量路径精确匹配，正则路径走前缀树
      */
-    private List<String> classNames = new ArrayList<>();
+    private MethodRouteTable<Handler> routeTable = MethodRouteTable.<Handler>builder().build();
 
     /**
-     * IOC容器
+     * IOC容器的访问上下文
      */
-    private Map<String, Object> ioc = new HashMap<>();
+    private ApplicationContext applicationContext = null;
 
     /**
-     * 为什么不用Map？答：用Map的话key只能是URL，Handler本身功能就是URL和Method对应关系，已经具备Map的功能。
+     * 映射方法的调用方式（初始化参数handlerInvoker）：reflection、methodHandle、generated
      */
-    private List<Handler> handlerMapping = new ArrayList<>();
+    private String handlerInvokerMode = HandlerInvokers.METHOD_HANDLE;
 
     /**
-     * IOC容器的访问上下文
+     * '@RequestParam'参数的类型转化器注册表
      */
-    private ApplicationContext applicationContext = null;
+    private TypeConverterRegistry typeConverterRegistry;
+
+    /**
+     * 正则路由结果缓存的容量（初始化参数routeCacheSize），0表示不缓存
+     */
+    private int routeCacheSize = RouteTable.DEFAULT_CACHE_SIZE;
+
+    /**
+     * 异步返回值（CompletableFuture、Callable）的处理，超时时间和线程池大小由初始化参数asyncTimeout、asyncPoolSize配置
+     */
+    private AsyncHandlerSupport asyncSupport;
+
+    /**
+     * 虚拟线程执行器（初始化参数executionMode=virtual），为null表示在容器线程中执行
+     */
+    private VirtualThreadExecutor virtualThreadExecutor;
+
+    /**
+     * 发布了虚拟线程执行器的ServletContext，停止时移除属性
+     */
+    private ServletContext servletContext;
+
+    /**
+     * 静态资源处理（初始化参数staticPath），为null表示不处理静态资源
+     */
+    private StaticResourceHandler staticResources;
+
+    /**
+     * 异常处理策略，按顺序尝试
+     */
+    private final List<HandlerExceptionResolver> exceptionResolvers = new ArrayList<>();
+
+    /**
+     * 未处理异常的日志（限流、异步）
+     */
+    private ErrorLogger errorLogger;
 
+    /**
+     * 请求属性：异步返回值所属的请求处理器，异步出错时据此查找@ExceptionHandler方法
+     */
+    private static final String HANDLER_ATTRIBUTE = DispatcherServlet.class.getName() + ".HANDLER";
+
+    /**
+     * ServletContext属性：虚拟线程执行器（VirtualThreadExecutor，executionMode=virtual时），
+     * 用于在运行期间读取提交次数、钉住载体线程的事件数
+     */
+    public static final String VIRTUAL_THREAD_EXECUTOR_ATTRIBUTE =
+            DispatcherServlet.class.getName() + ".VIRTUAL_THREAD_EXECUTOR";
+
+    /**
+     * 预先编码好的500响应
+     */
+    private static final byte[] INTERNAL_ERROR_BODY = "500 Internal Server Error".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 按请求方式直接选择路由表分发，不再经过doGet、doPost的转发
+     */
     @Override
-    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        this.doPost(req, resp);
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        RequestMethod method = RequestMethod.resolve(req.getMethod());
+        if (method == null) {
+            // 非标准的请求方式交给HttpServlet处理（响应501）
+            super.service(req, resp);
+            return;
+        }
+        if (this.virtualThreadExecutor != null && req.isAsyncSupported()) {
+            this.dispatchOnVirtualThread(req, resp, method);
+            return;
+        }
+        this.dispatch(req, resp, method, AsyncHandlerSupport.getCompletion(req));
     }
 
-    @Override
-    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    /**
+     * 在虚拟线程中分发请求：容器线程开启异步处理后立即返回线程池，
+     * 映射方法中的阻塞调用只会挂起虚拟线程
+     *
+     * @param req 请求
+     * @param resp 响应
+     * @param method 请求方式
+     */
+    private void dispatchOnVirtualThread(HttpServletRequest req, HttpServletResponse resp, RequestMethod method)
+            throws IOException {
+        // 超时、监听器只能在容器线程返回之前设置，所以在这里开启异步处理：容器不计时，
+        // 映射方法在虚拟线程中执行完毕（或异步结果就绪）后才complete()，避免容器回收请求后虚拟线程仍在写响应
+        AsyncHandlerSupport.AsyncCompletion completion = AsyncHandlerSupport.startAsync(req, resp);
+        try {
+            this.virtualThreadExecutor.execute(() -> {
+                try {
+                    this.dispatch(req, resp, method, null);
+                } catch (IOException ignored) {
+                    // 客户端已断开
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 停机中
+            if (completion.tryFinish()) {
+                try {
+                    resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                } finally {
+                    completion.complete();
+                }
+            }
+        }
+    }
+
+    /**
+     * 分发请求，本次分发开启的异步处理没有被接管时在这里complete()（唯一的完成点）
+     *
+     * @param req 请求
+     * @param resp 响应
+     * @param method 请求方式
+     * @param outer 外层分发（forward、include之前）已经开启的异步处理，不由本次分发complete()
+     */
+    private void dispatch(HttpServletRequest req, HttpServletResponse resp, RequestMethod method,
+                          AsyncHandlerSupport.AsyncCompletion outer) throws IOException {
+        boolean asyncOwned = false;
         try {
             // 6、请求委派（委派模式）
-            this.doDispatch(req,resp);
+            asyncOwned = this.doDispatch(req, resp, method);
         } catch (Exception e) {
-            e.printStackTrace();
-            resp.getWriter().write("500 Exection, Detail : " + Arrays.toString(e.getStackTrace()));
+            this.processException(req, resp, null, e);
+        } finally {
+            AsyncHandlerSupport.AsyncCompletion completion = AsyncHandlerSupport.getCompletion(req);
+            if (!asyncOwned && completion != null && completion != outer) {
+                completion.finish();
+            }
         }
     }
 
     /**
-     * 6、请求委派（委派模式）
+     * 映射方法异常的处理：依次交给异常处理策略，都未处理时记录日志（限流、异步）并输出预先编码好的500响应，
+     * 不再把堆栈拼接成字符串返回给客户端
      *
      * @param req 请求
      * @param resp 响应
+     * @param handler 请求处理器，匹配之前抛出的异常为null
+     * @param e 异常
      */
-    private void doDispatch(HttpServletRequest req, HttpServletResponse resp) throws Exception {
-        Handler handler = this.getHandler(req);
-        if (handler == null) {
-        //if (!this.handlerMapping.containsKey(url)) {
-            resp.getWriter().write("404 Not Found!!");
+    private void processException(HttpServletRequest req, HttpServletResponse resp, Handler handler, Throwable e)
+            throws IOException {
+        Object controller = handler == null ? null : handler.getController();
+        for (HandlerExceptionResolver resolver : this.exceptionResolvers) {
+            try {
+                if (resolver.resolveException(req, resp, controller, e)) {
+                    return;
+                }
+            } catch (Exception resolveEx) {
+                // 异常处理方法本身出错，两个异常都按未处理记录
+                resolveEx.addSuppressed(e);
+                e = resolveEx;
+                break;
+            }
+        }
+        this.errorLogger.log(req, e);
+        if (resp.isCommitted()) {
+            // 响应头已经发出，无法再修改状态码
             return;
         }
+        resp.reset();
+        resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        ResponseBodyWriter.write(resp, ResponseBodyWriter.TEXT_CONTENT_TYPE, INTERNAL_ERROR_BODY, INTERNAL_ERROR_BODY.length);
+    }
 
-        // 形参列表
-        Class<?>[] paramTypes = handler.getParamTypes();
-        // 实参列表
-        Object[] paramValues = new Object[paramTypes.length];
-        // 传参列表
-        Map<String, String[]> paramMap = req.getParameterMap();
-
-        // 匹配方法的参数，填充传递的参数
-        for (Map.Entry<String, Integer> entry : handler.paramIndexMapping.entrySet()) {
-            if (!paramMap.containsKey(entry.getKey())) {
-                continue;
+    /**
+     * 6、请求委派（委派模式）
+     *
+     * @param req 请求
+     * @param resp 响应
+     * @param method 请求方式
+     * @return 异步处理接管了响应（由AsyncHandlerSupport负责complete()）时返回true
+     */
+    private boolean doDispatch(HttpServletRequest req, HttpServletResponse resp, RequestMethod method) throws Exception {
+        // 线程封闭的分发上下文，复用实参数组和路径缓冲区
+        DispatchContext context = DispatchContext.acquire();
+        // request作用域的Bean在本次分发中创建（或从对象池借出），分发结束时归还；作用域对象在第一次使用时才创建
+        RequestScope outerScope = this.applicationContext.beginRequestScope();
+        boolean asyncOwned = false;
+        try {
+            // 去掉上下文的相对路径，合并连续的"/"（单次遍历，不走正则）
+            RequestPath url = context.parsePath(req.getRequestURI(), req.getContextPath());
+            Handler handler = this.getHandler(method, url);
+            if (handler == null) {
+                if (this.staticResources != null && this.staticResources.handle(req, resp, method, url)) {
+                    return false;
+                }
+                this.noHandlerFound(req, resp, method, url);
+                return false;
             }
-            String value = Arrays.toString(paramMap.get(entry.getKey()))
-                    // 去掉中括号
-                    .replaceAll("\\[|\\]", "")
-                    // 去掉空白字符（等价于[\f\n\r\t\v]）
-                    .replaceAll("\\s+", "");
-            Integer paramIndex = entry.getValue();
-            paramValues[paramIndex] = this.convert(paramTypes[paramIndex], value);
-        }
 
-        // 设置request和response参数
-        if (handler.paramIndexMapping.containsKey(HttpServletRequest.class.getSimpleName())) {
-            Integer index = handler.paramIndexMapping.get(HttpServletRequest.class.getSimpleName());
-            paramValues[index] = req;
-        }
-        if (handler.paramIndexMapping.containsKey(HttpServletResponse.class.getSimpleName())) {
-            Integer index = handler.paramIndexMapping.get(HttpServletResponse.class.getSimpleName());
-            paramValues[index] = resp;
+            try {
+                // 按预编译的参数解析器逐个解析实参
+                ArgumentResolver[] resolvers = handler.argumentResolvers;
+                Object[] paramValues = context.arguments(resolvers.length);
+                for (int i = 0; i < resolvers.length; i++) {
+                    paramValues[i] = resolvers[i].resolve(req, resp);
+                }
+
+                // 调用映射方法
+                Object returnValue = handler.getInvoker().invoke(paramValues);
+                if (returnValue == null || returnValue instanceof Void) {
+                    return false;
+                }
+                if (AsyncHandlerSupport.isAsyncResult(returnValue)) {
+                    // 释放容器线程，结果就绪后再写出响应
+                    req.setAttribute(HANDLER_ATTRIBUTE, handler);
+                    asyncOwned = this.asyncSupport.handle(req, resp, returnValue, handler.bodyCache);
+                    return asyncOwned;
+                }
+                this.writeReturnValue(req, resp, returnValue, handler.bodyCache);
+            } catch (Exception e) {
+                this.processException(req, resp, handler, e);
+            }
+            return false;
+        } finally {
+            RequestScope requestScope = this.applicationContext.endRequestScope(outerScope);
+            if (requestScope != null) {
+                if (asyncOwned) {
+                    // 异步处理可能仍持有借出的实例，结束后再归还
+                    AsyncHandlerSupport.getCompletion(req).runAfterCompletion(requestScope::close);
+                } else {
+                    requestScope.close();
+                }
+            }
+            context.release();
         }
+    }
 
-        // 调用映射方法
-        Object returnValue = handler.method.invoke(handler.controller, paramValues);
-        if (returnValue == null || returnValue instanceof Void) {
+    /**
+     * 写出映射方法的返回值：Stream、Iterator逐个元素流式写出，其他一次写出
+     *
+     * @param req 请求
+     * @param resp 响应
+     * @param returnValue 返回值（非null）
+     * @param cache 映射方法的常量缓存
+     */
+    private void writeReturnValue(HttpServletRequest req, HttpServletResponse resp, Object returnValue,
+                                  ResponseBodyWriter.ConstantBodyCache cache) throws IOException {
+        if (StreamingResponseWriter.isStreamingResult(returnValue)) {
+            StreamingResponseWriter.write(req, resp, returnValue, this.errorLogger);
             return;
         }
-        resp.getWriter().write(returnValue.toString());
+        ResponseBodyWriter.writeReturnValue(resp, returnValue, cache);
     }
 
     /**
-     * 根据请求路径匹配请求处理器
+     * 根据请求方式和请求路径匹配请求处理器
      *
-     * @param req 请求
+     * @param method 请求方式
+     * @param url 规范化后的请求路径
      * @return 请求处理器
      */
-    private Handler getHandler(HttpServletRequest req) {
-        // 绝对路径
-        String url = req.getRequestURI();
-        // 去掉上下文的相对路径
-        String contextPath = req.getContextPath();
-        url = url.replaceAll(contextPath, "").replaceAll("/+", "/");
-
+    private Handler getHandler(RequestMethod method, RequestPath url) {
         // 匹配请求处理器
-        for (Handler handler : this.handlerMapping) {
-            Matcher matcher = handler.getPattern().matcher(url);
-            if (!matcher.matches()) {
-                continue;
-            }
-            return handler;
-        }
-        return null;
+        return this.routeTable.match(method, url);
     }
 
     /**
-     * 类型转化
+     * 当前请求方式下没有匹配的请求处理器：
+     * 路径在其他请求方式下存在时响应405（OPTIONS请求响应200）并带上Allow头，否则响应404
      *
-     * @param type 类型
-     * @param value 转化前的值
-     * @return 转化后的值
+     * @param req 请求
+     * @param resp 响应
+     * @param method 请求方式
+     * @param url 规范化后的请求路径
      */
-    private Object convert(Class<?> type, String value) {
-        if (Integer.class == type) {
-            return Integer.valueOf(value);
-        } else if (Double.class == type) {
-            return Double.valueOf(value);
+    private void noHandlerFound(HttpServletRequest req, HttpServletResponse resp, RequestMethod method,
+                                RequestPath url) throws IOException {
+        String allow = this.routeTable.getAllowedMethods(url);
+        if (allow == null) {
+            //if (!this.handlerMapping.containsKey(url)) {
+            resp.getWriter().write("404 Not Found!!");
+            return;
+        }
+        resp.setHeader("Allow", allow);
+        if (method == RequestMethod.OPTIONS) {
+            return;
         }
-        return value;
+        resp.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
     }
 
     @Override
     public void init(ServletConfig config) {
-//        // 1、加载application.properties配置文件
-//        this.doLoadConfig(config.getInitParameter("contextConfigLocation"));
-//
-//        // 2、扫描包下的所有类，将类的全限定名放入classNames集合列表
-//        this.doScanner(contextConfig.getProperty("scan.package"));
-//
-//        //  ================== IOC（Inversion of Control，控制反转）部分 ==================
-//        /**
-//         * IOC = DI + AOP
-//         * IOC不是一种技术而是一种设计思想，它的作用/目的：解耦。
-//         * IOC：对对象控制权的转移，从程序代码本身反转到了外部容器。
-//         */
-//        // 3、初始化IOC容器，将组件注解类实例化并加入IoC容器
-//        this.doInstance();
-//
-//        // AOP（Aspect Oriented Programming，面向切面编程）
-//
-//        //  ================== DI（Dependency Injection， 依赖注入）部分 ==================
-//        /**
-//         * DI：对象之间依赖关系由容器在运行期决定。
-//         */
-//        // 4、完成依赖注入
-//        this.doAutowired();
-
+        // 1~4、加载配置文件、扫描组件、创建单例并完成依赖注入（IoC、DI）交给ApplicationContext
         applicationContext = new ApplicationContext(config.getInitParameter("contextConfigLocation"));
 
+        if (config.getInitParameter("handlerInvoker") != null) {
+            this.handlerInvokerMode = config.getInitParameter("handlerInvoker");
+        }
+        if (config.getInitParameter("routeCacheSize") != null) {
+            this.routeCacheSize = Integer.parseInt(config.getInitParameter("routeCacheSize").trim());
+        }
+        this.typeConverterRegistry = new TypeConverterRegistry();
+        this.initExceptionResolvers();
+        this.initAsyncSupport(config);
+        this.initExecutionMode(config);
+        this.initStaticResources(config);
+
         //  ================== MVC部分 ==================
         // 5、初始化HandlerMapping
         this.doInitHandlerMapping();
@@ -197,198 +358,195 @@ public class DispatcherServlet extends HttpServlet {
     }
 
     /**
-     * 5、初始化HandlerMapping
+     * 初始化异步返回值的处理
+     *
+     * @param config Servlet配置
      */
-    private void doInitHandlerMapping() {
-        if (this.ioc.isEmpty()) {
-            return;
+    private void initAsyncSupport(ServletConfig config) {
+        long timeout = AsyncHandlerSupport.DEFAULT_TIMEOUT;
+        if (config.getInitParameter("asyncTimeout") != null) {
+            timeout = Long.parseLong(config.getInitParameter("asyncTimeout").trim());
         }
-        for (Map.Entry<String, Object> entry : this.ioc.entrySet()) {
-            Class<?> clazz = entry.getValue().getClass();
-            if (!clazz.isAnnotationPresent(Controller.class)) {
-                continue;
-            }
-            // Controller类注解上的映射路径：@RequestMapping("/demo")
-            String baseUrl = "";
-            if (clazz.isAnnotationPresent(RequestMapping.class)) {
-                baseUrl = clazz.getAnnotation(RequestMapping.class).value();
+        int poolSize = Runtime.getRuntime().availableProcessors() * 2;
+        if (config.getInitParameter("asyncPoolSize") != null) {
+            poolSize = Integer.parseInt(config.getInitParameter("asyncPoolSize").trim());
+        }
+        this.asyncSupport = new AsyncHandlerSupport(timeout, poolSize, new AsyncHandlerSupport.ResultWriter() {
+            @Override
+            public void writeResult(HttpServletRequest req, HttpServletResponse resp, Object result,
+                                    ResponseBodyWriter.ConstantBodyCache cache) throws Exception {
+                if (result != null) {
+                    DispatcherServlet.this.writeReturnValue(req, resp, result, cache);
+                }
             }
 
-            for (Method method : clazz.getMethods()) {
-                // 方法注解的映射路径：@RequestMapping("/query")
-                if (!method.isAnnotationPresent(RequestMapping.class)) {
-                    continue;
-                }
-                // 解决RequestMapping参数不加/情况
-                String regex = ("/" + baseUrl + "/" + method.getAnnotation(RequestMapping.class).value())
-                        .replaceAll("/+", "/");
-                Pattern pattern = Pattern.compile(regex);
-                // this.handlerMapping.put(url, method);
-                this.handlerMapping.add(new Handler(pattern, entry.getValue(), method));
-                System.out.println("Mapped: " + pattern + " => " + method);
+            @Override
+            public void writeError(HttpServletRequest req, HttpServletResponse resp, Throwable error) throws IOException {
+                Handler handler = (Handler) req.getAttribute(HANDLER_ATTRIBUTE);
+                DispatcherServlet.this.processException(req, resp, handler, error);
             }
-        }
+        }, this.errorLogger);
     }
 
     /**
-     * 4、完成依赖注入
+     * 初始化映射方法的执行方式：platform（默认，容器线程）、virtual（虚拟线程，JVM不支持时回退到platform）
+     *
+     * @param config Servlet配置
      */
-    private void doAutowired() {
-        if (this.ioc.isEmpty()) {
+    private void initExecutionMode(ServletConfig config) {
+        if (!"virtual".equalsIgnoreCase(config.getInitParameter("executionMode"))) {
             return;
         }
-        for (Map.Entry<String, Object> entry : this.ioc.entrySet()) {
-            Class<?> clazz = entry.getValue().getClass();
-            // 把所有的包括private/protected/default/public 修饰字段都取出来
-            Field[] fields = clazz.getDeclaredFields();
-            for (Field f : fields) {
-                if (!f.isAnnotationPresent(Autowired.class)) {
-                    continue;
-                }
-                Autowired autowired = f.getAnnotation(Autowired.class);
-                String beanName = autowired.value();
-                if ("".equals(beanName.trim())) {
-                    // field.getType() => com.ma.demo.service.DemoService
-                    // field.getDeclaringClass() => com.ma.demo.controller.DemoController
-                    // field.getClass() => java.lang.reflect.Field
-                    beanName = this.toLowerFirstCase(f.getType().getSimpleName());
-                }
-                // 暴力访问
-                f.setAccessible(true);
-                try {
-                    f.set(entry.getValue(), this.ioc.get(beanName));
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
-            }
+        this.virtualThreadExecutor = VirtualThreadExecutor.create();
+        if (this.virtualThreadExecutor == null) {
+            System.err.println("Virtual threads are not supported by this JVM, fallback to executionMode=platform");
+            return;
         }
+        this.servletContext = config.getServletContext();
+        this.servletContext.setAttribute(VIRTUAL_THREAD_EXECUTOR_ATTRIBUTE, this.virtualThreadExecutor);
+    }
+
+    /**
+     * 初始化异常处理：@ExceptionHandler方法，以及未处理异常的日志
+     */
+    private void initExceptionResolvers() {
+        this.exceptionResolvers.add(new ExceptionHandlerExceptionResolver(this::writeReturnValue));
+        this.errorLogger = new ErrorLogger(ErrorLogger.DEFAULT_INTERVAL);
     }
 
     /**
-     * 3、初始化IOC容器，将组件注解类实例化并加入IoC容器
-     * 组件注解：@Component及其子注解@Service、@Controller、@Repository...
+     * 初始化静态资源处理：staticPath为请求路径前缀，staticCacheSize为内存映射的总大小上限（字节）
+     *
+     * @param config Servlet配置
      */
-    private void doInstance() {
-        if (this.classNames.isEmpty()) {
+    private void initStaticResources(ServletConfig config) {
+        String staticPath = config.getInitParameter("staticPath");
+        if (staticPath == null || staticPath.trim().isEmpty()) {
             return;
         }
+        long cacheSize = StaticResourceHandler.DEFAULT_CACHE_SIZE;
+        if (config.getInitParameter("staticCacheSize") != null) {
+            cacheSize = Long.parseLong(config.getInitParameter("staticCacheSize").trim());
+        }
+        this.staticResources = new StaticResourceHandler(staticPath.trim(), config.getServletContext(), cacheSize);
+    }
 
-        for (String className : this.classNames) {
-            try {
-                // 必须加<?>，否则clazz.getAnnotation()返回的是Annotation对象
-                Class<?> clazz = Class.forName(className);
-                // clazz.isAnnotationPresent()判断该类上是否加了指定注解
-                if (clazz.isAnnotationPresent(Controller.class)) {
-                    // 默认类名首字母小写  注：clazz.getSimpleName()获取类名；clazz.getName()获取类的全限定名
-                    String beanName = this.toLowerFirstCase(clazz.getSimpleName());
-                    // key=>类名；value=>实例
-                    this.ioc.put(beanName, clazz.newInstance());
-                } else if (clazz.isAnnotationPresent(Service.class)) {
-                    // 获取@Service注解的value属性
-                    Service service = clazz.getAnnotation(Service.class);
-                    // 1、自定义的beanName
-                    String beanName = service.value();
-
-                    // 2、默认类名首字母小写
-                    if ("".equals(beanName.trim())) {
-                        beanName = this.toLowerFirstCase(clazz.getSimpleName());
-                    }
-                    this.ioc.put(beanName, clazz.newInstance());
-
-                    // 3、一个接口不允许有多个别名相同的实现类
-                    for (Class<?> i : clazz.getInterfaces()) {
-                        if (this.ioc.containsKey(this.toLowerFirstCase(i.getSimpleName()))) {
-                            throw new Exception("The \"" + i.getName() + "\" is exists, please use alies");
-                        }
-                        this.ioc.put(this.toLowerFirstCase(i.getSimpleName()), clazz.newInstance());
-                    }
-                } else {
-                    continue;
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+    @Override
+    public void destroy() {
+        if (this.asyncSupport != null) {
+            this.asyncSupport.shutdown();
+        }
+        if (this.errorLogger != null) {
+            this.errorLogger.shutdown();
+        }
+        if (this.virtualThreadExecutor != null) {
+            this.servletContext.removeAttribute(VIRTUAL_THREAD_EXECUTOR_ATTRIBUTE);
+            this.virtualThreadExecutor.shutdown();
         }
     }
 
     /**
-     * 2、递归扫描包下的所有类，将类的全限定名放入classNames集合列表
-     *
-     * @param scanPackage 扫描的包路径
+     * 5、初始化HandlerMapping
      */
-    private void doScanner(String scanPackage) {
-        URL url = this.getClass().getClassLoader().getResource(scanPackage.replaceAll("\\.", "/"));
-        // URL.getFile()路径带参数，URL.getPath()路径不带参数
-        File classPath = new File(url.getFile());
-        for (File file : classPath.listFiles()) {
-            if (file.isDirectory()) {
-                doScanner(scanPackage + "." + file.getName());
-            } else {
-                if (!file.getName().endsWith(".class")) {
+    private void doInitHandlerMapping() {
+        if (this.applicationContext.getBeanDefinitionCount() == 0) {
+            return;
+        }
+        MethodRouteTable.Builder<Handler> routes = MethodRouteTable.<Handler>builder().cacheSize(this.routeCacheSize);
+        for (String beanName : this.applicationContext.getBeanDefinitionNames()) {
+            Class<?> clazz = this.applicationContext.getType(beanName);
+            if (!clazz.isAnnotationPresent(Controller.class)) {
+                continue;
+            }
+            // 请求处理器绑定一个控制器实例：prototype的控制器会被所有请求共用，request作用域的控制器启动时无法创建
+            BeanDefinition beanDefinition = this.applicationContext.getBeanDefinition(beanName);
+            if (!beanDefinition.isSingleton()) {
+                throw new BeansException("@Controller '" + beanName + "' must be a singleton, scope '"
+                        + beanDefinition.getScope() + "' is not supported, inject request-scoped beans"
+                        + " into a singleton controller instead");
+            }
+            // @Lazy的控制器在第一次分发到它时才创建，其他控制器启动时已经创建，这里直接绑定
+            boolean lazyInit = beanDefinition.isLazyInit();
+            ExceptionHandlerExceptionResolver.introspect(clazz);
+            // Controller类注解上的映射路径：@RequestMapping("/demo")
+            String baseUrl = "";
+            if (clazz.isAnnotationPresent(RequestMapping.class)) {
+                baseUrl = clazz.getAnnotation(RequestMapping.class).value();
+            }
+
+            for (Method method : clazz.getMethods()) {
+                // 方法注解的映射路径：@RequestMapping("/query")、@GetMapping("/query")...
+                Annotation mapping = this.findRequestMapping(method);
+                if (mapping == null) {
                     continue;
                 }
-                // 全限定名 = 包名 + 类名
-                // replace第一个参数为字符串，replaceAll第一个参数为正则，故不需加转义。
-                String className = scanPackage + "." + file.getName().replace(".class", "");
-                this.classNames.add(className);
+                // 解决RequestMapping参数不加/情况
+                String regex = ("/" + baseUrl + "/" + this.getMappingValue(mapping))
+                        .replaceAll("/+", "/");
+                RequestMethod[] requestMethods = mapping instanceof RequestMapping
+                        ? ((RequestMapping) mapping).method()
+                        : mapping.annotationType().getAnnotation(RequestMapping.class).method();
+                Pattern pattern = Pattern.compile(regex);
+                // this.handlerMapping.put(url, method);
+                Handler handler = new Handler(pattern, beanName, method);
+                if (!lazyInit) {
+                    handler.getInvoker();
+                }
+                this.handlerMapping.add(handler);
+                routes.add(regex, requestMethods, handler);
+                System.out.println("Mapped: " + pattern + " " + Arrays.toString(requestMethods) + " => " + method);
             }
         }
+        this.routeTable = routes.build();
+        System.out.println("Routes: " + this.routeTable);
     }
 
     /**
-     * 1、加载application.properties配置文件
+     * 查找方法上的映射注解：@RequestMapping，或者被@RequestMapping标注的快捷注解（@GetMapping等）
      *
-     * @param contextConfigLocation Servlet初始化配置-application.properties配置文件路径
+     * @param method 方法
+     * @return 映射注解，没有返回null
      */
-    private void doLoadConfig(String contextConfigLocation) {
-        /**
-         * 获取类路径下资源：
-         * 1、Class类的getResourceAsStream(String path)方法：以/开头相对classes根路径，不加则相对当前类的class文件。
-         *      InputStream is = this.getClass().getResourceAsStream("/xxx.txt");
-         * 2、Class类的getResourceAsStream(String path)方法：不能以/开头，因为本身就是相对classes路径。
-         *      InputStream is = this.getClass().getClassLoader().getResourceAsStream("xxx.txt");
-         */
-        InputStream is = this.getClass().getClassLoader().getResourceAsStream(contextConfigLocation);
-        try {
-            // 读取格式为"key=value"的.properties文件
-            contextConfig.load(is);
-        } catch (IOException e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                if (is != null) {
-                    is.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+    private Annotation findRequestMapping(Method method) {
+        RequestMapping requestMapping = method.getAnnotation(RequestMapping.class);
+        if (requestMapping != null) {
+            return requestMapping;
+        }
+        for (Annotation annotation : method.getAnnotations()) {
+            if (annotation.annotationType().isAnnotationPresent(RequestMapping.class)) {
+                return annotation;
             }
         }
+        return null;
     }
 
     /**
-     * 首字母转小写
+     * 获取映射注解的value属性
      *
-     * @param simpleName 类名
-     * @return 首字母小写的类名
+     * @param mapping 映射注解
+     * @return 映射路径
      */
-    private String toLowerFirstCase(String simpleName) {
-        if (Character.isLowerCase(simpleName.charAt(0))) {
-            return simpleName;
+    private String getMappingValue(Annotation mapping) {
+        if (mapping instanceof RequestMapping) {
+            return ((RequestMapping) mapping).value();
+        }
+        try {
+            return (String) mapping.annotationType().getMethod("value").invoke(mapping);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Mapping annotation must declare value(): " + mapping, e);
         }
-        char[] charArray = simpleName.toCharArray();
-        charArray[0] += 32;
-        return new String(charArray);
     }
 
-
     /**
      * 请求处理器：记录Controller中的RequestMapping和Method的对应关系
      */
     public class Handler {
         /**  */
         private Pattern pattern;
-        /** 控制器单例对象 */
-        private Object controller;
+        /** 控制器的beanName */
+        private final String beanName;
+        /** 控制器单例对象，第一次分发时才从容器获取（@Lazy的控制器此时才创建） */
+        private volatile Object controller;
         /** 映射方法 */
         private Method method;
         /** 形参类型列表 */
@@ -402,6 +560,13 @@ public class DispatcherServlet extends HttpServlet {
             return method;
         }
 
+        public String getBeanName() {
+            return beanName;
+        }
+
+        /**
+         * @return 控制器单例，尚未分发过时返回null
+         */
         public Object getController() {
             return controller;
         }
@@ -411,50 +576,92 @@ public class DispatcherServlet extends HttpServlet {
         }
 
         /**
-         * 形参列表：key-形参名，value-参数索引
+         * 参数解析器：下标与形参一一对应
+         */
+        private ArgumentResolver[] argumentResolvers;
+
+        /**
+         * 预先绑定控制器单例的调用器，第一次分发时创建
+         */
+        private volatile HandlerInvoker invoker;
+
+        /**
+         * 常量返回值的编码缓存
          */
-        private Map<String,Integer> paramIndexMapping;
+        private final ResponseBodyWriter.ConstantBodyCache bodyCache = new ResponseBodyWriter.ConstantBodyCache();
 
-        public Handler(Pattern pattern, Object controller, Method method) {
+        public Handler(Pattern pattern, String beanName, Method method) {
             this.pattern = pattern;
-            this.controller = controller;
+            this.beanName = beanName;
             this.method = method;
 
             paramTypes = method.getParameterTypes();
 
-            paramIndexMapping = new HashMap<>();
-            putParamIndexMapping(method);
+            argumentResolvers = compileArgumentResolvers(method);
+        }
+
+        /**
+         * 获取调用器：第一次调用时从容器获取控制器单例并绑定（双重检查，只创建一次）
+         *
+         * @return 调用器
+         */
+        HandlerInvoker getInvoker() {
+            HandlerInvoker result = invoker;
+            if (result == null) {
+                synchronized (this) {
+                    result = invoker;
+                    if (result == null) {
+                        Object bean = applicationContext.getBean(beanName);
+                        controller = bean;
+                        invoker = result = HandlerInvokers.create(handlerInvokerMode, bean, method);
+                    }
+                }
+            }
+            return result;
         }
 
         /**
-         * 形参列表映射
+         * 为每个形参编译参数解析器
          *
-         * @param method
+         * @param method 映射方法
+         * @return 参数解析器列表
          */
-        private void putParamIndexMapping(Method method) {
+        private ArgumentResolver[] compileArgumentResolvers(Method method) {
+            ArgumentResolver[] resolvers = new ArgumentResolver[paramTypes.length];
             // 形参注解（一个参数可以有多个注解）
             Annotation[][] pas = method.getParameterAnnotations();
+            Type[] genericParamTypes = method.getGenericParameterTypes();
             for (int i = 0; i < paramTypes.length; i++) {
+                Class<?> paramType = paramTypes[i];
+                // 提取方法参数中的request和response参数
+                if (paramType == HttpServletRequest.class) {
+                    resolvers[i] = ServletArgumentResolver.REQUEST;
+                    continue;
+                }
+                if (paramType == HttpServletResponse.class) {
+                    resolvers[i] = ServletArgumentResolver.RESPONSE;
+                    continue;
+                }
                 for (Annotation paramAnnotation : pas[i]) {
                     // 判断注解类型是否为@RequestParam的2种方法
                     // RequestParam.class.isInstance(paramAnnotation) {
                     if (paramAnnotation instanceof RequestParam) {
-                        String paramName = ((RequestParam) paramAnnotation).value();
-                        if (!"".equals(paramName.trim())) {
-                            paramIndexMapping.put(paramName, i);
+                        RequestParam requestParam = (RequestParam) paramAnnotation;
+                        String paramName = requestParam.value().trim();
+                        if ("".equals(paramName)) {
+                            paramName = requestParam.name().trim();
+                        }
+                        if (!"".equals(paramName)) {
+                            resolvers[i] = new RequestParamArgumentResolver(paramName, paramType,
+                                    typeConverterRegistry.getValuesConverter(paramType, genericParamTypes[i]));
                         }
                     }
                 }
-            }
-
-            // 提取方法参数中的request和response参数
-            for (int i = 0; i < this.paramTypes.length; i++) {
-                Class<?> paramType = paramTypes[i];
-                if (paramType == HttpServletRequest.class
-                    || paramType == HttpServletResponse.class) {
-                    paramIndexMapping.put(paramType.getSimpleName(), i);
+                if (resolvers[i] == null) {
+                    resolvers[i] = DefaultValueArgumentResolver.of(paramType);
                 }
             }
+            return resolvers;
         }
 
     }
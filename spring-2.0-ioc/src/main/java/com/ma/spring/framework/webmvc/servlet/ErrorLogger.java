@@ -0,0 +1,127 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 未处理异常的日志：限流、取样、异步输出。
+ * <p>
+ * 同一异常类型在每个时间窗口内只取第一个输出完整堆栈，其余只计数，下次输出时附带被忽略的次数；
+ * 输出在后台线程中进行，队列满时直接丢弃并计数，请求线程不会因为打印堆栈而阻塞。
+ *
+ * @author ma
+ * @date 2026/10/19 01:10
+ */
+final class ErrorLogger {
+
+    /** 默认时间窗口（毫秒） */
+    static final long DEFAULT_INTERVAL = 1000L;
+
+    private static final int QUEUE_CAPACITY = 256;
+
+    private final long interval;
+
+    /** 异常类型 -> 时间窗口 */
+    private final ConcurrentHashMap<Class<?>, Window> windows = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    /** 队列满时丢弃的日志数 */
+    private final LongAdder dropped = new LongAdder();
+
+    private final Thread thread;
+
+    ErrorLogger(long interval) {
+        this.interval = interval;
+        this.thread = new Thread(this::run, "error-logger");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 记录未处理的异常
+     *
+     * @param req 请求
+     * @param error 异常
+     */
+    void log(HttpServletRequest req, Throwable error) {
+        Window window = windows.computeIfAbsent(error.getClass(), k -> new Window());
+        long suppressed = window.tryAcquire(System.currentTimeMillis(), interval);
+        if (suppressed < 0) {
+            return;
+        }
+        // 请求对象在请求结束后会被容器回收，这里先取出需要的信息
+        String request = req.getMethod() + " " + req.getRequestURI();
+        if (!queue.offer(new Record(System.currentTimeMillis(), request, error, suppressed))) {
+            dropped.increment();
+        }
+    }
+
+    private void run() {
+        try {
+            for (;;) {
+                Record record = queue.take();
+                StringBuilder sb = new StringBuilder(128)
+                        .append('[').append(Instant.ofEpochMilli(record.time)).append("] ")
+                        .append("Unhandled exception for ").append(record.request);
+                if (record.suppressed > 0) {
+                    sb.append(" (").append(record.suppressed).append(" similar suppressed)");
+                }
+                long droppedCount = dropped.sumThenReset();
+                if (droppedCount > 0) {
+                    sb.append(" (").append(droppedCount).append(" dropped)");
+                }
+                System.err.println(sb);
+                record.error.printStackTrace();
+            }
+        } catch (InterruptedException e) {
+            // 停机
+        }
+    }
+
+    void shutdown() {
+        thread.interrupt();
+    }
+
+    /**
+     * 时间窗口：窗口内只放行一次
+     */
+    private static final class Window {
+
+        private final AtomicLong nextAt = new AtomicLong();
+
+        private final LongAdder suppressed = new LongAdder();
+
+        /**
+         * @return 放行时返回上次放行后被忽略的次数，不放行返回-1
+         */
+        long tryAcquire(long now, long interval) {
+            long next = nextAt.get();
+            if (now < next || !nextAt.compareAndSet(next, now + interval)) {
+                suppressed.increment();
+                return -1;
+            }
+            return suppressed.sumThenReset();
+        }
+    }
+
+    private static final class Record {
+        final long time;
+        final String request;
+        final Throwable error;
+        final long suppressed;
+
+        Record(long time, String request, Throwable error, long suppressed) {
+            this.time = time;
+            this.request = request;
+            this.error = error;
+            this.suppressed = suppressed;
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import com.ma.spring.framework.annotation.ExceptionHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按@ExceptionHandler方法处理异常：在抛出异常的Controller中查找能处理该异常类型的方法。
+ * <p>
+ * 每个Controller类的@ExceptionHandler方法只扫描一次（ClassValue），
+ * 异常类型到处理方法的匹配结果（包括"没有匹配"）按异常类型缓存，之后只需一次哈希查找。
+ *
+ * @author ma
+ * @date 2026/10/19 00:50
+ */
+final class ExceptionHandlerExceptionResolver implements HandlerExceptionResolver {
+
+    /**
+     * 异常处理方法返回值的写出方式（与映射方法一致）
+     */
+    interface ReturnValueWriter {
+        void write(HttpServletRequest req, HttpServletResponse resp, Object returnValue,
+                   ResponseBodyWriter.ConstantBodyCache cache) throws IOException;
+    }
+
+    private static final ClassValue<ExceptionHandlerMethods> METHODS = new ClassValue<ExceptionHandlerMethods>() {
+        @Override
+        protected ExceptionHandlerMethods computeValue(Class<?> type) {
+            return new ExceptionHandlerMethods(type);
+        }
+    };
+
+    private final ReturnValueWriter returnValueWriter;
+
+    ExceptionHandlerExceptionResolver(ReturnValueWriter returnValueWriter) {
+        this.returnValueWriter = returnValueWriter;
+    }
+
+    /**
+     * 启动时扫描Controller的异常处理方法，声明有误时尽早失败
+     *
+     * @param controllerClass Controller类
+     */
+    static void introspect(Class<?> controllerClass) {
+        METHODS.get(controllerClass);
+    }
+
+    @Override
+    public boolean resolveException(HttpServletRequest req, HttpServletResponse resp, Object handler, Throwable ex)
+            throws Exception {
+        if (handler == null) {
+            return false;
+        }
+        HandlerMethod method = METHODS.get(handler.getClass()).find(ex.getClass());
+        if (method == null || resp.isCommitted()) {
+            return false;
+        }
+        resp.resetBuffer();
+        resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        Object returnValue = method.invoke(handler, req, resp, ex);
+        if (returnValue != null) {
+            returnValueWriter.write(req, resp, returnValue, method.bodyCache);
+        }
+        return true;
+    }
+
+    /**
+     * 一个Controller类的全部异常处理方法
+     */
+    private static final class ExceptionHandlerMethods {
+
+        /** 匹配结果缓存中表示"没有匹配"的占位 */
+        private static final HandlerMethod NONE = new HandlerMethod(null);
+
+        /** 声明的异常类型 -> 处理方法 */
+        private final Map<Class<?>, HandlerMethod> declared = new HashMap<>();
+
+        /** 实际抛出的异常类型 -> 处理方法 */
+        private final ConcurrentHashMap<Class<?>, HandlerMethod> resolved = new ConcurrentHashMap<>();
+
+        ExceptionHandlerMethods(Class<?> controllerClass) {
+            for (Method method : controllerClass.getMethods()) {
+                ExceptionHandler annotation = method.getAnnotation(ExceptionHandler.class);
+                if (annotation == null) {
+                    continue;
+                }
+                HandlerMethod handlerMethod = new HandlerMethod(method);
+                Class<?>[] exceptionTypes = annotation.value();
+                if (exceptionTypes.length == 0) {
+                    exceptionTypes = handlerMethod.parameterExceptionTypes();
+                }
+                if (exceptionTypes.length == 0) {
+                    throw new IllegalStateException("No exception types declared for @ExceptionHandler method: " + method);
+                }
+                for (Class<?> exceptionType : exceptionTypes) {
+                    HandlerMethod previous = declared.putIfAbsent(exceptionType, handlerMethod);
+                    if (previous != null) {
+                        throw new IllegalStateException("Ambiguous @ExceptionHandler method mapped for "
+                                + exceptionType.getName() + ": " + previous.method + ", " + method);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 沿异常类的继承链查找最近的处理方法
+         *
+         * @param exceptionType 抛出的异常类型
+         * @return 处理方法，没有返回null
+         */
+        HandlerMethod find(Class<?> exceptionType) {
+            if (declared.isEmpty()) {
+                return null;
+            }
+            HandlerMethod method = resolved.get(exceptionType);
+            if (method == null) {
+                method = NONE;
+                for (Class<?> type = exceptionType; type != null && type != Object.class; type = type.getSuperclass()) {
+                    HandlerMethod candidate = declared.get(type);
+                    if (candidate != null) {
+                        method = candidate;
+                        break;
+                    }
+                }
+                resolved.putIfAbsent(exceptionType, method);
+            }
+            return method == NONE ? null : method;
+        }
+    }
+
+    /**
+     * 异常处理方法：参数按类型注入异常、请求、响应，其他参数取默认值
+     */
+    private static final class HandlerMethod {
+
+        final Method method;
+
+        final ResponseBodyWriter.ConstantBodyCache bodyCache = new ResponseBodyWriter.ConstantBodyCache();
+
+        HandlerMethod(Method method) {
+            this.method = method;
+            if (method != null) {
+                method.setAccessible(true);
+            }
+        }
+
+        Class<?>[] parameterExceptionTypes() {
+            return Arrays.stream(method.getParameterTypes())
+                    .filter(Throwable.class::isAssignableFrom)
+                    .toArray(Class<?>[]::new);
+        }
+
+        Object invoke(Object controller, HttpServletRequest req, HttpServletResponse resp, Throwable ex)
+                throws Exception {
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            Object[] args = new Object[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Class<?> type = parameterTypes[i];
+                if (type.isInstance(ex)) {
+                    args[i] = ex;
+                } else if (type == HttpServletRequest.class) {
+                    args[i] = req;
+                } else if (type == HttpServletResponse.class) {
+                    args[i] = resp;
+                } else {
+                    args[i] = DefaultValueArgumentResolver.defaultValue(type);
+                }
+            }
+            try {
+                return method.invoke(controller, args);
+            } catch (InvocationTargetException e) {
+                throw HandlerInvokers.rethrow(e.getTargetException());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 映射方法异常的处理策略，DispatcherServlet按顺序调用，第一个处理成功的生效；
+ * 都没有处理时输出预先编码好的500响应
+ *
+ * @author ma
+ * @date 2026/10/19 00:50
+ */
+public interface HandlerExceptionResolver {
+
+    /**
+     * 处理异常
+     *
+     * @param req 请求
+     * @param resp 响应
+     * @param handler 抛出异常的Controller实例，匹配映射方法之前抛出的异常为null
+     * @param ex 异常
+     * @return 已处理返回true
+     * @throws Exception 异常处理本身出错
+     */
+    boolean resolveException(HttpServletRequest req, HttpServletResponse resp, Object handler, Throwable ex)
+            throws Exception;
+
+}
@@ -0,0 +1,20 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+/**
+ * 映射方法调用器：在doInitHandlerMapping时与控制器单例绑定，请求时只需传入实参
+ *
+ * @author ma
+ * @date 2026/10/18 14:30
+ */
+public interface HandlerInvoker {
+
+    /**
+     * 调用映射方法
+     *
+     * @param args 实参列表
+     * @return 方法返回值，void方法返回null
+     * @throws Exception 映射方法抛出的异常（已解包，不再是InvocationTargetException）
+     */
+    Object invoke(Object[] args) throws Exception;
+
+}
@@ -0,0 +1,428 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 启动时为每个映射方法生成一个调用器类，相当于手写了：
+ * <pre>
+ * public final class DemoController$$Invoker$1 implements HandlerInvoker {
+ *     private final DemoController target;
+ *     public Object invoke(Object[] args) {
+ *         target.add((HttpServletRequest) args[0], (HttpServletResponse) args[1], ((Integer) args[2]).intValue());
+ *         return null;
+ *     }
+ * }
+ * </pre>
+ * 直接invokevirtual具体的控制器类型，参数的强转、拆箱和返回值装箱都内联在生成的字节码里，
+ * 每个路由一个单态调用点，JIT可以完全内联。
+ * <p>
+ * 生成的类由控制器类加载器的子加载器定义，类路径上不需要额外的字节码库；
+ * 只能访问public成员，控制器、方法或参数类型不是public时返回null，由调用方回退到其他调用方式。
+ *
+ * @author ma
+ * @date 2026/10/18 17:05
+ */
+final class HandlerInvokerGenerator {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    /** 每个父类加载器对应一个定义生成类的加载器 */
+    private static final Map<ClassLoader, InvokerClassLoader> LOADERS = new HashMap<>();
+
+    private static final String INVOKER = HandlerInvoker.class.getName().replace('.', '/');
+
+    private HandlerInvokerGenerator() {
+    }
+
+    /**
+     * 生成调用器
+     *
+     * @param controller 控制器单例
+     * @param method 映射方法
+     * @return 调用器，无法生成时返回null
+     * @throws ReflectiveOperationException 生成的类实例化失败
+     */
+    static HandlerInvoker generate(Object controller, Method method) throws ReflectiveOperationException {
+        Class<?> targetType = controller.getClass();
+        if (!isSupported(targetType, method)) {
+            return null;
+        }
+        String className = targetType.getName() + "$$Invoker$" + SEQUENCE.incrementAndGet();
+        byte[] bytes = new ClassBuilder(className.replace('.', '/'), targetType, method).build();
+        Class<?> invokerClass = loaderFor(targetType.getClassLoader()).define(className, bytes);
+        Constructor<?> constructor = invokerClass.getConstructor(Object.class);
+        return (HandlerInvoker) constructor.newInstance(controller);
+    }
+
+    private static boolean isSupported(Class<?> targetType, Method method) {
+        int modifiers = method.getModifiers();
+        if (Modifier.isStatic(modifiers) || !Modifier.isPublic(modifiers)
+                || !isPublic(targetType) || !isPublic(method.getDeclaringClass())
+                || !isPublic(method.getReturnType())) {
+            return false;
+        }
+        for (Class<?> paramType : method.getParameterTypes()) {
+            if (!isPublic(paramType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPublic(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+            if (!c.isPrimitive() && !Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static synchronized InvokerClassLoader loaderFor(ClassLoader parent) {
+        ClassLoader key = parent != null ? parent : ClassLoader.getSystemClassLoader();
+        return LOADERS.computeIfAbsent(key, InvokerClassLoader::new);
+    }
+
+    /**
+     * 定义生成类的类加载器：父加载器为控制器的类加载器，可以同时看到控制器和框架类型
+     */
+    private static final class InvokerClassLoader extends ClassLoader {
+
+        InvokerClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        synchronized Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * 最小的class文件构建器：一个final字段、一个构造方法、一个invoke方法，没有分支，
+     * 因此Java 8（52）版本的class文件不需要StackMapTable。
+     */
+    private static final class ClassBuilder {
+
+        private static final int ACC_PUBLIC = 0x0001;
+        private static final int ACC_PRIVATE = 0x0002;
+        private static final int ACC_FINAL = 0x0010;
+        private static final int ACC_SUPER = 0x0020;
+
+        private static final int ALOAD_0 = 0x2a;
+        private static final int ALOAD_1 = 0x2b;
+        private static final int ACONST_NULL = 0x01;
+        private static final int ICONST_0 = 0x03;
+        private static final int BIPUSH = 0x10;
+        private static final int SIPUSH = 0x11;
+        private static final int AALOAD = 0x32;
+        private static final int CHECKCAST = 0xc0;
+        private static final int GETFIELD = 0xb4;
+        private static final int PUTFIELD = 0xb5;
+        private static final int INVOKEVIRTUAL = 0xb6;
+        private static final int INVOKESPECIAL = 0xb7;
+        private static final int INVOKESTATIC = 0xb8;
+        private static final int RETURN = 0xb1;
+        private static final int ARETURN = 0xb0;
+
+        private final String className;
+        private final Class<?> targetType;
+        private final Method method;
+
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private final DataOutputStream poolOut = new DataOutputStream(pool);
+        private final Map<String, Integer> poolIndex = new HashMap<>();
+        private int poolCount = 1;
+
+        ClassBuilder(String className, Class<?> targetType, Method method) {
+            this.className = className;
+            this.targetType = targetType;
+            this.method = method;
+        }
+
+        byte[] build() {
+            try {
+                int thisClass = classRef(className);
+                int superClass = classRef("java/lang/Object");
+                int invokerInterface = classRef(INVOKER);
+                String targetDescriptor = descriptor(targetType);
+                int targetField = fieldRef(className, "target", targetDescriptor);
+                int targetName = utf8("target");
+                int targetDesc = utf8(targetDescriptor);
+                int code = utf8("Code");
+                int initName = utf8("<init>");
+                int initDesc = utf8("(Ljava/lang/Object;)V");
+                int invokeName = utf8("invoke");
+                int invokeDesc = utf8("([Ljava/lang/Object;)Ljava/lang/Object;");
+                byte[] initCode = constructorCode(targetField);
+                int[] invokeStack = new int[1];
+                byte[] invokeCode = invokeCode(targetField, invokeStack);
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(52);
+                out.writeShort(poolCount);
+                pool.writeTo(out);
+                out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1);
+                out.writeShort(invokerInterface);
+                // 字段：private final Target target
+                out.writeShort(1);
+                out.writeShort(ACC_PRIVATE | ACC_FINAL);
+                out.writeShort(targetName);
+                out.writeShort(targetDesc);
+                out.writeShort(0);
+                // 方法：构造方法、invoke
+                out.writeShort(2);
+                writeMethod(out, initName, initDesc, code, 2, 2, initCode);
+                writeMethod(out, invokeName, invokeDesc, code, invokeStack[0], 2, invokeCode);
+                out.writeShort(0);
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * this.target = (Target) target;
+         */
+        private byte[] constructorCode(int targetField) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream code = new DataOutputStream(bytes);
+            code.writeByte(ALOAD_0);
+            code.writeByte(INVOKESPECIAL);
+            code.writeShort(methodRef("java/lang/Object", "<init>", "()V"));
+            code.writeByte(ALOAD_0);
+            code.writeByte(ALOAD_1);
+            code.writeByte(CHECKCAST);
+            code.writeShort(classRef(internalName(targetType)));
+            code.writeByte(PUTFIELD);
+            code.writeShort(targetField);
+            code.writeByte(RETURN);
+            return bytes.toByteArray();
+        }
+
+        /**
+         * return box(this.target.method((T0) args[0], unbox((W1) args[1]), ...));
+         */
+        private byte[] invokeCode(int targetField, int[] maxStack) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream code = new DataOutputStream(bytes);
+            code.writeByte(ALOAD_0);
+            code.writeByte(GETFIELD);
+            code.writeShort(targetField);
+            int slots = 1;
+            int stack = 1;
+            Class<?>[] paramTypes = method.getParameterTypes();
+            for (int i = 0; i < paramTypes.length; i++) {
+                Class<?> paramType = paramTypes[i];
+                code.writeByte(ALOAD_1);
+                pushInt(code, i);
+                code.writeByte(AALOAD);
+                // 加载实参时操作数栈上额外有 args 和 下标 两个槽位
+                stack = Math.max(stack, slots + 2);
+                if (paramType.isPrimitive()) {
+                    Class<?> wrapper = wrapper(paramType);
+                    code.writeByte(CHECKCAST);
+                    code.writeShort(classRef(internalName(wrapper)));
+                    code.writeByte(INVOKEVIRTUAL);
+                    code.writeShort(methodRef(internalName(wrapper), paramType.getName() + "Value",
+                            "()" + descriptor(paramType)));
+                } else if (paramType != Object.class) {
+                    code.writeByte(CHECKCAST);
+                    code.writeShort(classRef(internalName(paramType)));
+                }
+                slots += slotSize(paramType);
+            }
+            stack = Math.max(stack, slots);
+            code.writeByte(INVOKEVIRTUAL);
+            code.writeShort(methodRef(internalName(targetType), method.getName(), methodDescriptor(method)));
+            Class<?> returnType = method.getReturnType();
+            if (returnType == void.class) {
+                code.writeByte(ACONST_NULL);
+                stack = Math.max(stack, 1);
+            } else if (returnType.isPrimitive()) {
+                Class<?> wrapper = wrapper(returnType);
+                code.writeByte(INVOKESTATIC);
+                code.writeShort(methodRef(internalName(wrapper), "valueOf",
+                        "(" + descriptor(returnType) + ")" + descriptor(wrapper)));
+                stack = Math.max(stack, slotSize(returnType));
+            }
+            code.writeByte(ARETURN);
+            maxStack[0] = stack;
+            return bytes.toByteArray();
+        }
+
+        private void writeMethod(DataOutputStream out, int name, int desc, int codeName,
+                                 int maxStack, int maxLocals, byte[] code) throws IOException {
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(name);
+            out.writeShort(desc);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(2 + 2 + 4 + code.length + 2 + 2);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            // 异常表、属性表均为空
+            out.writeShort(0);
+            out.writeShort(0);
+        }
+
+        private static void pushInt(DataOutputStream code, int value) throws IOException {
+            if (value <= 5) {
+                code.writeByte(ICONST_0 + value);
+            } else if (value <= Byte.MAX_VALUE) {
+                code.writeByte(BIPUSH);
+                code.writeByte(value);
+            } else {
+                code.writeByte(SIPUSH);
+                code.writeShort(value);
+            }
+        }
+
+        // ================== 常量池 ==================
+
+        private int utf8(String value) throws IOException {
+            Integer index = poolIndex.get("U" + value);
+            if (index != null) {
+                return index;
+            }
+            poolOut.writeByte(1);
+            poolOut.writeUTF(value);
+            return register("U" + value);
+        }
+
+        private int classRef(String internalName) throws IOException {
+            Integer index = poolIndex.get("C" + internalName);
+            if (index != null) {
+                return index;
+            }
+            int name = utf8(internalName);
+            poolOut.writeByte(7);
+            poolOut.writeShort(name);
+            return register("C" + internalName);
+        }
+
+        private int nameAndType(String name, String descriptor) throws IOException {
+            String key = "N" + name + ":" + descriptor;
+            Integer index = poolIndex.get(key);
+            if (index != null) {
+                return index;
+            }
+            int nameIndex = utf8(name);
+            int descIndex = utf8(descriptor);
+            poolOut.writeByte(12);
+            poolOut.writeShort(nameIndex);
+            poolOut.writeShort(descIndex);
+            return register(key);
+        }
+
+        private int fieldRef(String owner, String name, String descriptor) throws IOException {
+            return memberRef(9, owner, name, descriptor);
+        }
+
+        private int methodRef(String owner, String name, String descriptor) throws IOException {
+            return memberRef(10, owner, name, descriptor);
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) throws IOException {
+            String key = tag + owner + "." + name + ":" + descriptor;
+            Integer index = poolIndex.get(key);
+            if (index != null) {
+                return index;
+            }
+            int ownerIndex = classRef(owner);
+            int nat = nameAndType(name, descriptor);
+            poolOut.writeByte(tag);
+            poolOut.writeShort(ownerIndex);
+            poolOut.writeShort(nat);
+            return register(key);
+        }
+
+        private int register(String key) {
+            int index = poolCount++;
+            poolIndex.put(key, index);
+            return index;
+        }
+
+        // ================== 类型描述符 ==================
+
+        private static String internalName(Class<?> type) {
+            return type.isArray() ? descriptor(type) : type.getName().replace('.', '/');
+        }
+
+        private static String methodDescriptor(Method method) {
+            StringBuilder sb = new StringBuilder("(");
+            for (Class<?> paramType : method.getParameterTypes()) {
+                sb.append(descriptor(paramType));
+            }
+            return sb.append(')').append(descriptor(method.getReturnType())).toString();
+        }
+
+        private static String descriptor(Class<?> type) {
+            if (type.isArray()) {
+                return type.getName().replace('.', '/');
+            }
+            if (type == void.class) {
+                return "V";
+            } else if (type == boolean.class) {
+                return "Z";
+            } else if (type == char.class) {
+                return "C";
+            } else if (type == byte.class) {
+                return "B";
+            } else if (type == short.class) {
+                return "S";
+            } else if (type == int.class) {
+                return "I";
+            } else if (type == long.class) {
+                return "J";
+            } else if (type == float.class) {
+                return "F";
+            } else if (type == double.class) {
+                return "D";
+            }
+            return "L" + type.getName().replace('.', '/') + ";";
+        }
+
+        private static int slotSize(Class<?> type) {
+            return type == long.class || type == double.class ? 2 : 1;
+        }
+
+        private static Class<?> wrapper(Class<?> primitive) {
+            if (primitive == boolean.class) {
+                return Boolean.class;
+            } else if (primitive == char.class) {
+                return Character.class;
+            } else if (primitive == byte.class) {
+                return Byte.class;
+            } else if (primitive == short.class) {
+                return Short.class;
+            } else if (primitive == int.class) {
+                return Integer.class;
+            } else if (primitive == long.class) {
+                return Long.class;
+            } else if (primitive == float.class) {
+                return Float.class;
+            }
+            return Double.class;
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.lang.reflect.Method;
+
+/**
+ * 调用器工厂：根据DispatcherServlet的初始化参数handlerInvoker选择调用方式
+ *
+ * @author ma
+ * @date 2026/10/18 14:45
+ */
+public final class HandlerInvokers {
+
+    /** 反射调用 */
+    public static final String REFLECTION = "reflection";
+    /** MethodHandle调用（默认） */
+    public static final String METHOD_HANDLE = "methodHandle";
+    /** 启动时生成字节码直接调用 */
+    public static final String GENERATED = "generated";
+
+    private HandlerInvokers() {
+    }
+
+    /**
+     * 创建调用器：生成字节码失败时回退到MethodHandle，MethodHandle创建失败时回退到反射
+     *
+     * @param mode 调用方式
+     * @param controller 控制器单例
+     * @param method 映射方法
+     * @return 调用器
+     */
+    public static HandlerInvoker create(String mode, Object controller, Method method) {
+        if (GENERATED.equalsIgnoreCase(mode)) {
+            try {
+                HandlerInvoker invoker = HandlerInvokerGenerator.generate(controller, method);
+                if (invoker != null) {
+                    return invoker;
+                }
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.err.println("Generated invoker unavailable for " + method + ", fallback to MethodHandle: " + e);
+            }
+        }
+        if (!REFLECTION.equalsIgnoreCase(mode)) {
+            try {
+                return new MethodHandleHandlerInvoker(controller, method);
+            } catch (IllegalAccessException | RuntimeException e) {
+                System.err.println("MethodHandle unavailable for " + method + ", fallback to reflection: " + e);
+            }
+        }
+        return new ReflectiveHandlerInvoker(controller, method);
+    }
+
+    /**
+     * 受检异常原样抛出，Error直接抛出，其余Throwable包装后抛出
+     *
+     * @param e 映射方法抛出的异常
+     * @return 用于throw语句
+     */
+    static Exception rethrow(Throwable e) {
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e instanceof Exception) {
+            return (Exception) e;
+        }
+        return new IllegalStateException(e);
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.io.IOException;
+
+/**
+ * 单个类型的JSON序列化器，每个类型只构建一次（见JsonSerializers）
+ *
+ * @author ma
+ * @date 2026/10/18 21:35
+ */
+interface JsonSerializer {
+
+    /**
+     * 序列化
+     *
+     * @param value 非null的值
+     * @param out 输出
+     */
+    void write(Object value, JsonWriter out) throws IOException;
+
+}
@@ -0,0 +1,232 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JSON序列化器的按类缓存：ClassValue保证每个类型只构建一次序列化器。
+ * <p>
+ * 普通Java对象按public的getter（getXxx/isXxx）和public字段输出，
+ * 属性读取预先解析为MethodHandle，属性名预先编码为 "name": 形式的UTF-8字节。
+ *
+ * @author ma
+ * @date 2026/10/18 21:40
+ */
+final class JsonSerializers {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<JsonSerializer> SERIALIZERS = new ClassValue<JsonSerializer>() {
+        @Override
+        protected JsonSerializer computeValue(Class<?> type) {
+            return create(type);
+        }
+    };
+
+    private JsonSerializers() {
+    }
+
+    static JsonSerializer forClass(Class<?> type) {
+        return SERIALIZERS.get(type);
+    }
+
+    private static JsonSerializer create(Class<?> type) {
+        if (CharSequence.class.isAssignableFrom(type)) {
+            return (value, out) -> out.writeString((CharSequence) value);
+        }
+        if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class) {
+            return (value, out) -> out.writeLong(((Number) value).longValue());
+        }
+        if (type == Double.class || type == Float.class) {
+            return (value, out) -> out.writeDouble(((Number) value).doubleValue());
+        }
+        if (type == BigDecimal.class || type == BigInteger.class) {
+            return (value, out) -> out.writeAscii(value.toString());
+        }
+        if (type == Boolean.class) {
+            return (value, out) -> out.writeBoolean((Boolean) value);
+        }
+        if (type == Character.class || type.isEnum() || Enum.class.isAssignableFrom(type)) {
+            return (value, out) -> out.writeString(value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return JsonSerializers::writeMap;
+        }
+        if (Iterable.class.isAssignableFrom(type)) {
+            return (value, out) -> writeIterator(((Iterable<?>) value).iterator(), out);
+        }
+        if (Iterator.class.isAssignableFrom(type)) {
+            return (value, out) -> writeIterator((Iterator<?>) value, out);
+        }
+        if (type.isArray()) {
+            return JsonSerializers::writeArray;
+        }
+        if (type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+            // 日期、UUID等JDK类型按字符串输出
+            return (value, out) -> out.writeString(value.toString());
+        }
+        return BeanSerializer.create(type);
+    }
+
+    private static void writeMap(Object value, JsonWriter out) throws IOException {
+        out.writeByte('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            if (!first) {
+                out.writeByte(',');
+            }
+            first = false;
+            out.writeString(String.valueOf(entry.getKey()));
+            out.writeByte(':');
+            out.writeValue(entry.getValue());
+        }
+        out.writeByte('}');
+    }
+
+    /**
+     * 逐个元素输出：大列表不需要整体放入缓冲区
+     */
+    private static void writeIterator(Iterator<?> iterator, JsonWriter out) throws IOException {
+        out.writeByte('[');
+        boolean first = true;
+        while (iterator.hasNext()) {
+            if (!first) {
+                out.writeByte(',');
+            }
+            first = false;
+            out.writeValue(iterator.next());
+        }
+        out.writeByte(']');
+    }
+
+    private static void writeArray(Object value, JsonWriter out) throws IOException {
+        out.writeByte('[');
+        int length = Array.getLength(value);
+        Class<?> componentType = value.getClass().getComponentType();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                out.writeByte(',');
+            }
+            if (componentType == int.class) {
+                out.writeLong(((int[]) value)[i]);
+            } else if (componentType == long.class) {
+                out.writeLong(((long[]) value)[i]);
+            } else if (componentType == double.class) {
+                out.writeDouble(((double[]) value)[i]);
+            } else if (componentType == boolean.class) {
+                out.writeBoolean(((boolean[]) value)[i]);
+            } else {
+                out.writeValue(Array.get(value, i));
+            }
+        }
+        out.writeByte(']');
+    }
+
+    /**
+     * 普通Java对象的序列化器
+     */
+    private static final class BeanSerializer implements JsonSerializer {
+
+        /** 预编码的属性名：{"name": 或 ,"name": */
+        private final byte[][] names;
+
+        private final MethodHandle[] getters;
+
+        private BeanSerializer(byte[][] names, MethodHandle[] getters) {
+            this.names = names;
+            this.getters = getters;
+        }
+
+        static BeanSerializer create(Class<?> type) {
+            // 按属性名排序，保证输出顺序稳定
+            Map<String, MethodHandle> properties = new TreeMap<>();
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                for (Field field : type.getFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        properties.put(field.getName(), lookup.unreflectGetter(field).asType(GETTER_TYPE));
+                    }
+                }
+                for (Method method : type.getMethods()) {
+                    String name = propertyName(method);
+                    if (name != null) {
+                        // public类的public方法无需setAccessible；非public类（如内部类）需要打开访问
+                        if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                            method.setAccessible(true);
+                        }
+                        properties.put(name, lookup.unreflect(method).asType(GETTER_TYPE));
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access properties of " + type.getName(), e);
+            }
+            List<byte[]> names = new ArrayList<>(properties.size());
+            for (String name : properties.keySet()) {
+                String prefix = (names.isEmpty() ? "{" : ",") + quote(name) + ":";
+                names.add(prefix.getBytes(StandardCharsets.UTF_8));
+            }
+            return new BeanSerializer(names.toArray(new byte[0][]),
+                    properties.values().toArray(new MethodHandle[0]));
+        }
+
+        private static String propertyName(Method method) {
+            if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0
+                    || method.getDeclaringClass() == Object.class) {
+                return null;
+            }
+            String name = method.getName();
+            int prefix;
+            if (name.startsWith("get") && name.length() > 3 && method.getReturnType() != void.class) {
+                prefix = 3;
+            } else if (name.startsWith("is") && name.length() > 2
+                    && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+                prefix = 2;
+            } else {
+                return null;
+            }
+            return Character.toLowerCase(name.charAt(prefix)) + name.substring(prefix + 1);
+        }
+
+        private static String quote(String name) {
+            return "\"" + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        }
+
+        @Override
+        public void write(Object value, JsonWriter out) throws IOException {
+            if (names.length == 0) {
+                out.writeByte('{');
+                out.writeByte('}');
+                return;
+            }
+            for (int i = 0; i < names.length; i++) {
+                out.writeBytes(names[i]);
+                Object property;
+                try {
+                    property = getters[i].invokeExact(value);
+                } catch (IOException | RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+                out.writeValue(property);
+            }
+            out.writeByte('}');
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 流式JSON输出：直接把UTF-8字节写入缓冲区，缓冲区写满时才刷到输出流，
+ * 不生成中间的String或树模型，输出再大堆内存占用也保持不变。
+ *
+ * @author ma
+ * @date 2026/10/18 21:30
+ */
+final class JsonWriter {
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /** 嵌套层数上限，防止循环引用导致栈溢出 */
+    static final int MAX_DEPTH = 64;
+
+    private final OutputSupplier output;
+
+    private final byte[] buffer;
+
+    private int position;
+
+    /** 是否已经向输出流写出过数据 */
+    private boolean flushed;
+
+    private int depth;
+
+    /**
+     * @param buffer 缓冲区
+     * @param output 输出流，首次刷出时才获取
+     */
+    JsonWriter(byte[] buffer, OutputSupplier output) {
+        this.buffer = buffer;
+        this.output = output;
+    }
+
+    /**
+     * 延迟获取输出流：内容能一次放进缓冲区时，调用方可以先设置Content-Length
+     */
+    interface OutputSupplier {
+        OutputStream get() throws IOException;
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    int position() {
+        return position;
+    }
+
+    boolean isFlushed() {
+        return flushed;
+    }
+
+    /**
+     * 把缓冲区的内容刷到输出流
+     */
+    void flush() throws IOException {
+        if (position > 0) {
+            output.get().write(buffer, 0, position);
+            position = 0;
+        }
+        flushed = true;
+    }
+
+    private void ensure(int length) throws IOException {
+        if (buffer.length - position < length) {
+            flush();
+        }
+    }
+
+    void writeByte(char c) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) c;
+    }
+
+    void writeBytes(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length) {
+            flush();
+            output.get().write(bytes);
+            return;
+        }
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    void writeNull() throws IOException {
+        writeBytes(NULL);
+    }
+
+    void writeBoolean(boolean value) throws IOException {
+        writeBytes(value ? TRUE : FALSE);
+    }
+
+    void writeLong(long value) throws IOException {
+        ensure(20);
+        if (value == Long.MIN_VALUE) {
+            writeAscii("-9223372036854775808");
+            return;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        // 逆序写入的数字翻转过来
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte t = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = t;
+        }
+    }
+
+    void writeDouble(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeNull();
+        } else if (value == (long) value && Math.abs(value) < 1e15) {
+            writeLong((long) value);
+        } else {
+            writeAscii(Double.toString(value));
+        }
+    }
+
+    /**
+     * 写入不需要转义的ASCII内容（数字等）
+     */
+    void writeAscii(String s) throws IOException {
+        if (s.length() > buffer.length) {
+            flush();
+            output.get().write(s.getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            buffer[position++] = (byte) s.charAt(i);
+        }
+    }
+
+    /**
+     * 按UTF-8写入原始文本（不加引号、不转义）
+     */
+    void writeUtf8(CharSequence s) throws IOException {
+        int length = Utf8.encodedLength(s);
+        if (length > buffer.length) {
+            flush();
+            byte[] bytes = new byte[length];
+            Utf8.encode(s, bytes, 0);
+            output.get().write(bytes);
+            return;
+        }
+        ensure(length);
+        position = Utf8.encode(s, buffer, position);
+    }
+
+    /**
+     * 写入带引号、已转义的字符串
+     */
+    void writeString(CharSequence s) throws IOException {
+        writeByte('"');
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            // 转义最多6个字节，UTF-8最多4个字节
+            ensure(6);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                buffer[position++] = (byte) c;
+            } else if (c == '"' || c == '\\') {
+                buffer[position++] = '\\';
+                buffer[position++] = (byte) c;
+            } else if (c == '\n') {
+                buffer[position++] = '\\';
+                buffer[position++] = 'n';
+            } else if (c == '\r') {
+                buffer[position++] = '\\';
+                buffer[position++] = 'r';
+            } else if (c == '\t') {
+                buffer[position++] = '\\';
+                buffer[position++] = 't';
+            } else if (c < 0x20) {
+                buffer[position++] = '\\';
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = HEX[c >> 4];
+                buffer[position++] = HEX[c & 0xf];
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buffer[position++] = (byte) (0xf0 | (cp >> 18));
+                buffer[position++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else {
+                buffer[position++] = (byte) (0xe0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        writeByte('"');
+    }
+
+    /**
+     * 按值的运行时类型找到序列化器写入
+     */
+    void writeValue(Object value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        if (++depth > MAX_DEPTH) {
+            throw new IllegalStateException("JSON nesting too deep (circular reference?): " + value.getClass());
+        }
+        try {
+            JsonSerializers.forClass(value.getClass()).write(value, this);
+        } finally {
+            depth--;
+        }
+    }
+
+}
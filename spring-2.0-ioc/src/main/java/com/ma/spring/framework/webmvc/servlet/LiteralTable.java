@@ -0,0 +1,116 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+/**
+ * 字面量哈希表（开放寻址、线性探测）
+ * <p>
+ * 按CharSequence的任意片段查找，不需要先截取子串；哈希算法与String.hashCode()一致，
+ * 注册时直接复用字符串缓存的哈希值。构建完成后只读，可无锁并发访问。
+ *
+ * @author ma
+ * @date 2026/10/18 11:20
+ */
+public final class LiteralTable<V> {
+
+    private final String[] keys;
+
+    private final Object[] values;
+
+    private final int mask;
+
+    private int size;
+
+    /**
+     * @param expectedSize 预计的元素个数
+     */
+    public LiteralTable(int expectedSize) {
+        // 装载因子不超过0.5，保证探测链足够短
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 放入键值对，键已存在时保留原值
+     *
+     * @param key 字面量
+     * @param value 值
+     * @return 键已存在返回false
+     */
+    public boolean putIfAbsent(String key, V value) {
+        if (size >= (keys.length >> 1)) {
+            throw new IllegalStateException("LiteralTable is full, capacity: " + keys.length);
+        }
+        int i = spread(key.hashCode()) & mask;
+        while (keys[i] != null) {
+            if (keys[i].equals(key)) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * 按整个字符序列查找
+     *
+     * @param key 字符序列
+     * @return 值，不存在返回null
+     */
+    public V get(CharSequence key) {
+        return get(key, 0, key.length());
+    }
+
+    /**
+     * 按字符序列的片段查找
+     *
+     * @param s 字符序列
+     * @param start 起始位置（含）
+     * @param end 结束位置（不含）
+     * @return 值，不存在返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(CharSequence s, int start, int end) {
+        int h = 0;
+        for (int j = start; j < end; j++) {
+            h = 31 * h + s.charAt(j);
+        }
+        int i = spread(h) & mask;
+        String key;
+        while ((key = keys[i]) != null) {
+            if (regionEquals(key, s, start, end)) {
+                return (V) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static boolean regionEquals(String key, CharSequence s, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (int j = start; j < end; j++) {
+            if (key.charAt(j - start) != s.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+}
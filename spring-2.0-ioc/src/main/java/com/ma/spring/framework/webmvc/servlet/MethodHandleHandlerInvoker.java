@@ -0,0 +1,40 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 基于MethodHandle的调用器：方法句柄预先绑定控制器单例并展开实参数组，
+ * 统一适配为 (Object[])Object 类型后用invokeExact调用，没有反射的访问检查和可变参数装箱。
+ *
+ * @author ma
+ * @date 2026/10/18 14:40
+ */
+public final class MethodHandleHandlerInvoker implements HandlerInvoker {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private final MethodHandle handle;
+
+    public MethodHandleHandlerInvoker(Object controller, Method method) throws IllegalAccessException {
+        method.setAccessible(true);
+        MethodHandle mh = MethodHandles.lookup().unreflect(method);
+        if (!Modifier.isStatic(method.getModifiers())) {
+            mh = mh.bindTo(controller);
+        }
+        this.handle = mh.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKER_TYPE);
+    }
+
+    @Override
+    public Object invoke(Object[] args) throws Exception {
+        try {
+            return (Object) handle.invokeExact(args);
+        } catch (Throwable e) {
+            throw HandlerInvokers.rethrow(e);
+        }
+    }
+
+}
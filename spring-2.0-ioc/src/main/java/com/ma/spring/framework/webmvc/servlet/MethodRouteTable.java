@@ -0,0 +1,171 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import com.ma.spring.framework.annotation.RequestMethod;
+
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按HTTP请求方式划分的路由表：每种请求方式一张RouteTable，按枚举下标直接取表，
+ * GET请求不会扫描只注册在POST下的路由。未限定请求方式的路由注册到除OPTIONS、TRACE以外的所有表中，
+ * OPTIONS请求由DispatcherServlet根据Allow头直接响应。
+ * <p>
+ * 405响应和OPTIONS请求的Allow头由各请求方式的路由表分别判断：路径在哪些表中能匹配到路由（任意一条，
+ * 不只是先注册的那条），就支持哪些请求方式，与实际分发的结果一致。探测不经过结果缓存，
+ * 不存在的路径不会占用、淘汰缓存中的真实路由；同一组请求方式的Allow头只拼接一次。
+ *
+ * @author ma
+ * @date 2026/10/18 19:55
+ */
+public final class MethodRouteTable<T> {
+
+    private static final RequestMethod[] METHODS = RequestMethod.values();
+
+    /** 未限定请求方式的路由支持的请求方式 */
+    private static final EnumSet<RequestMethod> DEFAULT_METHODS =
+            EnumSet.complementOf(EnumSet.of(RequestMethod.OPTIONS, RequestMethod.TRACE));
+
+    private final RouteTable<T>[] tables;
+
+    /** 请求方式的位掩码（按枚举下标） -> Allow头，第一次用到时拼接 */
+    private final AtomicReferenceArray<String> allowHeaders = new AtomicReferenceArray<>(1 << METHODS.length);
+
+    private MethodRouteTable(RouteTable<T>[] tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * 查找路由
+     *
+     * @param method 请求方式
+     * @param path 规范化后的请求路径
+     * @return 匹配的路由，未匹配返回null
+     */
+    public T match(RequestMethod method, CharSequence path) {
+        return tables[method.ordinal()].match(path);
+    }
+
+    /**
+     * 该路径支持的请求方式（用于405响应的Allow头和OPTIONS请求）：匹配该路径的所有路由的请求方式的并集
+     *
+     * @param path 规范化后的请求路径
+     * @return 逗号分隔的请求方式，路径不存在返回null
+     */
+    public String getAllowedMethods(CharSequence path) {
+        int mask = 0;
+        for (RequestMethod method : METHODS) {
+            if (tables[method.ordinal()].find(path) != null) {
+                mask |= 1 << method.ordinal();
+            }
+        }
+        if (mask == 0) {
+            return null;
+        }
+        String allow = allowHeaders.get(mask);
+        if (allow == null) {
+            allow = toAllowHeader(mask);
+            allowHeaders.set(mask, allow);
+        }
+        return allow;
+    }
+
+    private static String toAllowHeader(int mask) {
+        StringBuilder allow = new StringBuilder(32);
+        for (RequestMethod method : METHODS) {
+            if (method != RequestMethod.OPTIONS && (mask & (1 << method.ordinal())) != 0) {
+                allow.append(method.name()).append(", ");
+            }
+        }
+        return allow.append(RequestMethod.OPTIONS.name()).toString();
+    }
+
+    /**
+     * @param method 请求方式
+     * @return 该请求方式的路由表
+     */
+    public RouteTable<T> getRouteTable(RequestMethod method) {
+        return tables[method.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("MethodRouteTable{");
+        for (RequestMethod method : METHODS) {
+            RouteTable<T> table = tables[method.ordinal()];
+            if (table.getExactRouteCount() + table.getPatternRouteCount() == 0) {
+                continue;
+            }
+            sb.append(method).append('=').append(table).append(", ");
+        }
+        return sb.append('}').toString();
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 构建器：只在doInitHandlerMapping阶段使用
+     */
+    public static class Builder<T> {
+
+        @SuppressWarnings("unchecked")
+        private final RouteTable.Builder<T>[] builders = new RouteTable.Builder[METHODS.length];
+
+        public Builder() {
+            for (int i = 0; i < builders.length; i++) {
+                builders[i] = RouteTable.builder();
+            }
+        }
+
+        /**
+         * 正则路由结果缓存的容量（每张表单独计算）
+         *
+         * @param cacheSize 容量，0表示不缓存
+         * @return this
+         */
+        public Builder<T> cacheSize(int cacheSize) {
+            for (RouteTable.Builder<T> builder : builders) {
+                builder.cacheSize(cacheSize);
+            }
+            return this;
+        }
+
+        /**
+         * 注册路由
+         *
+         * @param regex 映射路径
+         * @param methods 限定的请求方式，为空表示除OPTIONS、TRACE以外的所有请求方式
+         * @param value 路由
+         * @return this
+         */
+        public Builder<T> add(String regex, RequestMethod[] methods, T value) {
+            EnumSet<RequestMethod> registered = EnumSet.noneOf(RequestMethod.class);
+            if (methods == null || methods.length == 0) {
+                registered.addAll(DEFAULT_METHODS);
+            } else {
+                for (RequestMethod method : methods) {
+                    registered.add(method);
+                    // HEAD请求与GET请求共用映射方法
+                    if (method == RequestMethod.GET) {
+                        registered.add(RequestMethod.HEAD);
+                    }
+                }
+            }
+            for (RequestMethod method : registered) {
+                builders[method.ordinal()].add(regex, value);
+            }
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public MethodRouteTable<T> build() {
+            RouteTable<T>[] tables = new RouteTable[builders.length];
+            for (int i = 0; i < builders.length; i++) {
+                tables[i] = builders[i].build();
+            }
+            return new MethodRouteTable<>(tables);
+        }
+    }
+
+}
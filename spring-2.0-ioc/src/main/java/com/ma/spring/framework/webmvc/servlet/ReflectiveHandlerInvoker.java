@@ -0,0 +1,34 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 基于Method.invoke的调用器（兜底实现）
+ *
+ * @author ma
+ * @date 2026/10/18 14:35
+ */
+public final class ReflectiveHandlerInvoker implements HandlerInvoker {
+
+    private final Object controller;
+
+    private final Method method;
+
+    public ReflectiveHandlerInvoker(Object controller, Method method) {
+        this.controller = controller;
+        this.method = method;
+        // 关闭访问检查，减少每次调用的开销
+        method.setAccessible(true);
+    }
+
+    @Override
+    public Object invoke(Object[] args) throws Exception {
+        try {
+            return method.invoke(controller, args);
+        } catch (InvocationTargetException e) {
+            throw HandlerInvokers.rethrow(e.getTargetException());
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import com.ma.spring.framework.core.convert.ValuesConverter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * '@RequestParam'形参的解析器：参数名和类型转化器在创建时确定
+ *
+ * @author ma
+ * @date 2026/10/18 13:50
+ */
+public final class RequestParamArgumentResolver implements ArgumentResolver {
+
+    /** 请求参数名 */
+    private final String name;
+    /** 类型转化器 */
+    private final ValuesConverter converter;
+    /** 参数缺失时的值 */
+    private final Object missingValue;
+
+    public RequestParamArgumentResolver(String name, Class<?> type, ValuesConverter converter) {
+        this.name = name;
+        this.converter = converter;
+        this.missingValue = DefaultValueArgumentResolver.defaultValue(type);
+    }
+
+    @Override
+    public Object resolve(HttpServletRequest req, HttpServletResponse resp) throws Exception {
+        String[] values = req.getParameterMap().get(name);
+        if (values == null || values.length == 0) {
+            return missingValue;
+        }
+        return converter.convert(values);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
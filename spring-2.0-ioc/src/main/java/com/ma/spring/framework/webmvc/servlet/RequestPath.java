@@ -0,0 +1,137 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+/**
+ * 规范化后的请求路径（去掉上下文路径、合并连续的"/"）
+ * <p>
+ * 一次遍历getRequestURI()的字符完成规范化：无需改动时直接引用原字符串，
+ * 只有出现连续"/"时才拷贝一份字符数组。作为CharSequence交给路由匹配，避免截取子串。
+ * 分发请求时由DispatchContext复用同一个实例和字符缓冲区（线程封闭）。
+ *
+ * @author ma
+ * @date 2026/10/18 11:05
+ */
+public final class RequestPath implements CharSequence {
+
+    /** 原始字符串（与chars二选一） */
+    private String source;
+    /** 合并"/"后的字符（与source二选一） */
+    private char[] chars;
+    private int offset;
+    private int length;
+    /** 延迟生成的字符串形式 */
+    private String value;
+
+    RequestPath() {
+    }
+
+    private RequestPath(String source, char[] chars, int offset, int length) {
+        set(source, chars, offset, length);
+    }
+
+    private RequestPath set(String source, char[] chars, int offset, int length) {
+        this.source = source;
+        this.chars = chars;
+        this.offset = offset;
+        this.length = length;
+        this.value = null;
+        return this;
+    }
+
+    /**
+     * 规范化请求路径
+     *
+     * @param uri 请求的绝对路径：req.getRequestURI()
+     * @param contextPath 上下文路径：req.getContextPath()
+     * @return 规范化后的路径视图
+     */
+    public static RequestPath parse(String uri, String contextPath) {
+        return new RequestPath().reset(uri, contextPath, null);
+    }
+
+    /**
+     * 复用当前实例重新规范化请求路径
+     *
+     * @param uri 请求的绝对路径
+     * @param contextPath 上下文路径
+     * @param buffer 合并"/"时使用的字符缓冲区，长度不足时重新分配
+     * @return this
+     */
+    RequestPath reset(String uri, String contextPath, char[] buffer) {
+        int start = 0;
+        // 上下文路径按字面量前缀去掉（不能当作正则）
+        if (contextPath != null && !contextPath.isEmpty() && uri.startsWith(contextPath)) {
+            start = contextPath.length();
+        }
+        int length = uri.length();
+        for (int i = start + 1; i < length; i++) {
+            if (uri.charAt(i) == '/' && uri.charAt(i - 1) == '/') {
+                return collapse(uri, start, i, buffer);
+            }
+        }
+        return set(uri, null, start, length - start);
+    }
+
+    /**
+     * 规范化请求路径，路径无需改动时返回原字符串
+     *
+     * @param uri 请求的绝对路径
+     * @param contextPath 上下文路径
+     * @return 规范化后的路径
+     */
+    public static String normalize(String uri, String contextPath) {
+        return parse(uri, contextPath).toString();
+    }
+
+    /**
+     * 合并连续的"/"
+     *
+     * @param uri 请求路径
+     * @param start 起始位置
+     * @param firstDuplicate 第一个重复"/"的位置
+     * @param buffer 字符缓冲区
+     * @return this
+     */
+    private RequestPath collapse(String uri, int start, int firstDuplicate, char[] buffer) {
+        char[] buf = buffer != null && buffer.length >= uri.length() - start ? buffer : new char[uri.length() - start];
+        uri.getChars(start, firstDuplicate, buf, 0);
+        int n = firstDuplicate - start;
+        for (int i = firstDuplicate; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c == '/' && buf[n - 1] == '/') {
+                continue;
+            }
+            buf[n++] = c;
+        }
+        return set(null, buf, 0, n);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return source != null ? source.charAt(offset + index) : chars[offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new RequestPath(source, chars, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        String s = value;
+        if (s == null) {
+            if (source != null) {
+                s = offset == 0 && length == source.length() ? source : source.substring(offset, offset + length);
+            } else {
+                s = new String(chars, offset, length);
+            }
+            value = s;
+        }
+        return s;
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 返回值写出：把返回值编码到线程复用的字节数组，设置Content-Length和Content-Type后
+ * 通过getOutputStream()一次写出，避免容器字符流的逐次编码以及分块传输。
+ * <p>
+ * 同一个映射方法连续两次返回同一个字符串实例（常量）时，缓存其编码结果，之后直接写出缓存的字节。
+ * 字符串、数字、布尔值按文本输出，其他对象（Java对象、集合、Map、数组）按JSON流式输出。
+ *
+ * @author ma
+ * @date 2026/10/18 20:45
+ */
+final class ResponseBodyWriter {
+
+    static final String TEXT_CONTENT_TYPE = "text/plain;charset=UTF-8";
+
+    static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    /** JSON输出缓冲区的最小长度 */
+    private static final int JSON_BUFFER = 8192;
+
+    /** 线程复用字节数组的最大长度，超过时临时分配，避免线程长期持有大数组 */
+    static final int MAX_POOLED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[4096]);
+
+    private ResponseBodyWriter() {
+    }
+
+    /**
+     * 写出映射方法的返回值
+     *
+     * @param resp 响应
+     * @param returnValue 返回值（非null）
+     * @param cache 映射方法的常量缓存
+     */
+    static void writeReturnValue(HttpServletResponse resp, Object returnValue, ConstantBodyCache cache)
+            throws IOException {
+        if (returnValue instanceof CharSequence || returnValue instanceof Number
+                || returnValue instanceof Boolean || returnValue instanceof Character) {
+            writeText(resp, returnValue.toString(), cache);
+        } else {
+            writeJson(resp, returnValue);
+        }
+    }
+
+    /**
+     * 流式写出JSON：内容能一次放进缓冲区时与文本返回值一样由write()一次写出，
+     * 否则缓冲区每写满一次就刷出一次（分块传输），堆内存占用与内容大小无关。
+     *
+     * @param resp 响应
+     * @param value 返回值
+     */
+    static void writeJson(HttpServletResponse resp, Object value) throws IOException {
+        if (resp.getContentType() == null) {
+            resp.setContentType(JSON_CONTENT_TYPE);
+        }
+        JsonWriter json = new JsonWriter(buffer(JSON_BUFFER), resp::getOutputStream);
+        json.writeValue(value);
+        if (json.isFlushed()) {
+            json.flush();
+        } else {
+            write(resp, JSON_CONTENT_TYPE, json.buffer(), json.position());
+        }
+    }
+
+    /**
+     * 写出文本返回值
+     *
+     * @param resp 响应
+     * @param text 返回值
+     * @param cache 映射方法的常量缓存
+     */
+    static void writeText(HttpServletResponse resp, String text, ConstantBodyCache cache) throws IOException {
+        byte[] constant = cache.get(text);
+        if (constant != null) {
+            write(resp, TEXT_CONTENT_TYPE, constant, constant.length);
+            return;
+        }
+        int length = Utf8.encodedLength(text);
+        byte[] buffer = buffer(length);
+        int end = Utf8.encode(text, buffer, 0);
+        cache.offer(text, buffer, end);
+        write(resp, TEXT_CONTENT_TYPE, buffer, end);
+    }
+
+    /**
+     * 获取至少指定长度的字节数组：不超过上限时复用线程内的数组（虚拟线程除外）
+     *
+     * @param length 所需长度
+     * @return 字节数组
+     */
+    static byte[] buffer(int length) {
+        if (VirtualThreadExecutor.isVirtualThread()) {
+            // 虚拟线程用完即丢，不缓存
+            return new byte[length];
+        }
+        byte[] buffer = BUFFER.get();
+        if (buffer.length >= length) {
+            return buffer;
+        }
+        if (length > MAX_POOLED_BUFFER) {
+            return new byte[length];
+        }
+        buffer = new byte[Math.min(MAX_POOLED_BUFFER, Integer.highestOneBit(length) << 1)];
+        BUFFER.set(buffer);
+        return buffer;
+    }
+
+    /**
+     * 设置响应头并一次写出：
+     * 1、先确定输出方式，映射方法已经使用过getWriter()时只能继续用字符流，由容器按响应的字符集编码，不设置Content-Length；
+     * 2、字节流输出时，响应的字符集不是UTF-8（映射方法自行设置了Content-Type）则按响应的字符集重新编码；
+     * 3、设置编码后的Content-Length，一次写出。
+     *
+     * @param resp 响应
+     * @param contentType 内容类型
+     * @param bytes 内容（UTF-8编码）
+     * @param length 内容长度
+     */
+    static void write(HttpServletResponse resp, String contentType, byte[] bytes, int length) throws IOException {
+        if (resp.getContentType() == null) {
+            resp.setContentType(contentType);
+        }
+        ServletOutputStream out;
+        try {
+            out = resp.getOutputStream();
+        } catch (IllegalStateException e) {
+            resp.getWriter().write(new String(bytes, 0, length, StandardCharsets.UTF_8));
+            return;
+        }
+        Charset charset = responseCharset(resp);
+        if (charset != StandardCharsets.UTF_8) {
+            bytes = new String(bytes, 0, length, StandardCharsets.UTF_8).getBytes(charset);
+            length = bytes.length;
+        }
+        resp.setContentLength(length);
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * 响应的字符集，未设置或无法识别时按UTF-8
+     */
+    private static Charset responseCharset(HttpServletResponse resp) {
+        String encoding = resp.getCharacterEncoding();
+        if (encoding == null || "UTF-8".equalsIgnoreCase(encoding) || "UTF8".equalsIgnoreCase(encoding)) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    /**
+     * 映射方法的常量返回值缓存：只记录最近一次返回的字符串实例，
+     * 同一实例再次出现时认为是常量，缓存编码后的字节。
+     */
+    static final class ConstantBodyCache {
+
+        private volatile String candidate;
+
+        private volatile Encoded encoded;
+
+        byte[] get(String text) {
+            Encoded e = encoded;
+            return e != null && e.source == text ? e.bytes : null;
+        }
+
+        void offer(String text, byte[] buffer, int length) {
+            if (candidate == text) {
+                encoded = new Encoded(text, Arrays.copyOf(buffer, length));
+            } else {
+                candidate = text;
+            }
+        }
+    }
+
+    private static final class Encoded {
+        final String source;
+        final byte[] bytes;
+
+        Encoded(String source, byte[] bytes) {
+            this.source = source;
+            this.bytes = bytes;
+        }
+    }
+
+}
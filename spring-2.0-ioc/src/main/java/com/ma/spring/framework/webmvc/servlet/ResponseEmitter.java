@@ -0,0 +1,152 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 推送式返回值：映射方法返回ResponseEmitter后，业务线程调用send()逐个推送元素，
+ * 调度器在异步线程中取出元素写出（JSON数组分块传输，或请求头Accept包含text/event-stream时按SSE格式）。
+ * <p>
+ * 元素先放入有界队列：客户端消费慢、队列满时send()阻塞，超过timeout抛出IOException，形成背压；
+ * 客户端断开后send()同样抛出IOException，业务线程据此停止推送。
+ *
+ * @author ma
+ * @date 2026/10/18 23:40
+ */
+public class ResponseEmitter {
+
+    /** 默认队列容量 */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** 默认的send()最长阻塞时间（毫秒） */
+    public static final long DEFAULT_TIMEOUT = 30000L;
+
+    /** 结束标记 */
+    static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue;
+
+    private final long timeout;
+
+    /** 已调用complete()或completeWithError() */
+    private volatile boolean completed;
+
+    /** 客户端断开或请求超时 */
+    private volatile boolean cancelled;
+
+    private volatile Throwable failure;
+
+    public ResponseEmitter() {
+        this(DEFAULT_CAPACITY, DEFAULT_TIMEOUT);
+    }
+
+    public ResponseEmitter(int capacity) {
+        this(capacity, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param capacity 队列容量
+     * @param timeout 队列满时send()的最长阻塞时间（毫秒）
+     */
+    public ResponseEmitter(int capacity, long timeout) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.timeout = timeout;
+    }
+
+    /**
+     * 推送一个元素，队列满时阻塞
+     *
+     * @param item 元素（非null）
+     * @throws IOException 客户端已断开，或超过timeout仍无法放入队列
+     */
+    public void send(Object item) throws IOException {
+        if (item == null) {
+            throw new IllegalArgumentException("item must not be null");
+        }
+        if (completed) {
+            throw new IllegalStateException("ResponseEmitter has already completed");
+        }
+        checkCancelled();
+        boolean offered;
+        try {
+            offered = queue.offer(item, timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending");
+        }
+        checkCancelled();
+        if (!offered) {
+            throw new IOException("Send timeout after " + timeout + "ms, client is not consuming");
+        }
+    }
+
+    /**
+     * 推送结束
+     */
+    public void complete() {
+        if (completed) {
+            return;
+        }
+        completed = true;
+        // 队列满时放不进结束标记，写出线程取空队列后会检查completed
+        queue.offer(END);
+    }
+
+    /**
+     * 推送异常结束：SSE格式下写出error事件，JSON数组只能中断输出
+     *
+     * @param error 异常
+     */
+    public void completeWithError(Throwable error) {
+        failure = error;
+        complete();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void checkCancelled() throws IOException {
+        if (cancelled) {
+            throw new IOException("Client disconnected");
+        }
+    }
+
+    /**
+     * 客户端断开或请求超时：唤醒阻塞在send()上的业务线程
+     */
+    void cancel() {
+        cancelled = true;
+        completed = true;
+        queue.clear();
+    }
+
+    boolean isCompleted() {
+        return completed;
+    }
+
+    Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * 取出下一个元素
+     *
+     * @param wait 最长等待时间（毫秒），0表示不等待
+     * @return 元素或END，没有元素时返回null
+     */
+    Object poll(long wait) throws InterruptedException {
+        return wait == 0 ? queue.poll() : queue.poll(wait, TimeUnit.MILLISECONDS);
+    }
+
+    boolean isDrained() {
+        return queue.isEmpty();
+    }
+
+}
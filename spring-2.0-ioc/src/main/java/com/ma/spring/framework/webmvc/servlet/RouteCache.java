@@ -0,0 +1,169 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 正则路由的解析结果缓存（规范化路径 -> 路由），也缓存未匹配的结果（404）。
+ * <p>
+ * 按CharSequence的内容查找（哈希算法与String.hashCode()一致，逐字符比较），
+ * 请求路径不需要先toString()，命中缓存时不分配对象。
+ * 读取无锁：桶数组用AtomicReferenceArray发布，链表的next为volatile，写入和淘汰只修改指针。
+ * 容量有上限，写入时用CLOCK算法近似LRU淘汰：命中时只设置访问标记，
+ * 淘汰时指针扫过环形数组，跳过并清除有访问标记的条目。写入时拿不到锁就放弃缓存，不阻塞请求线程。
+ *
+ * @author ma
+ * @date 2026/10/18 19:00
+ */
+final class RouteCache<T> {
+
+    /** 哈希桶（链表头），桶数不小于容量的2倍 */
+    private final AtomicReferenceArray<Entry<T>> buckets;
+
+    private final int mask;
+
+    /** CLOCK环形数组，由lock保护 */
+    private final Entry<T>[] ring;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int hand;
+
+    /** 由lock保护写入，读取只用于统计 */
+    private volatile int size;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    RouteCache(int capacity) {
+        int bucketCount = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+        this.mask = bucketCount - 1;
+        this.ring = new Entry[capacity];
+    }
+
+    /**
+     * 查找缓存
+     *
+     * @param path 规范化后的请求路径
+     * @return 缓存条目（value为null表示缓存的未匹配结果），未缓存返回null
+     */
+    Entry<T> get(CharSequence path) {
+        int hash = hash(path);
+        for (Entry<T> entry = buckets.get(hash & mask); entry != null; entry = entry.next) {
+            if (entry.hash == hash && entry.path.contentEquals(path)) {
+                if (!entry.referenced) {
+                    entry.referenced = true;
+                }
+                hits.increment();
+                return entry;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 放入缓存，容量已满时按CLOCK算法淘汰一个条目
+     *
+     * @param path 规范化后的请求路径
+     * @param value 路由，未匹配时为null
+     */
+    void put(CharSequence path, T value) {
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            int hash = hash(path);
+            int index = hash & mask;
+            for (Entry<T> e = buckets.get(index); e != null; e = e.next) {
+                if (e.hash == hash && e.path.contentEquals(path)) {
+                    return;
+                }
+            }
+            Entry<T> victim;
+            while ((victim = ring[hand]) != null && victim.referenced) {
+                victim.referenced = false;
+                hand = (hand + 1) % ring.length;
+            }
+            if (victim != null) {
+                this.unlink(victim);
+            }
+            // 只有写入缓存时才生成字符串
+            Entry<T> entry = new Entry<>(path.toString(), hash, value, buckets.get(index));
+            ring[hand] = entry;
+            hand = (hand + 1) % ring.length;
+            buckets.set(index, entry);
+            size++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从链表中摘除条目（持有lock）：正在遍历该条目的读线程仍能通过它的next继续查找
+     */
+    private void unlink(Entry<T> victim) {
+        int index = victim.hash & mask;
+        Entry<T> e = buckets.get(index);
+        if (e == victim) {
+            buckets.set(index, victim.next);
+        } else {
+            while (e != null && e.next != victim) {
+                e = e.next;
+            }
+            if (e == null) {
+                return;
+            }
+            e.next = victim.next;
+        }
+        size--;
+    }
+
+    /**
+     * 与String.hashCode()一致的哈希，再把高位扩散到低位
+     */
+    private static int hash(CharSequence s) {
+        int h = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * 缓存条目
+     */
+    static final class Entry<T> {
+        final String path;
+        final int hash;
+        final T value;
+        /** 同一个桶中的下一个条目，淘汰时由写线程修改 */
+        volatile Entry<T> next;
+        /** 访问标记（CLOCK算法的第二次机会），读写竞争只会影响淘汰精度 */
+        volatile boolean referenced;
+
+        Entry(String path, int hash, T value, Entry<T> next) {
+            this.path = path;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+}
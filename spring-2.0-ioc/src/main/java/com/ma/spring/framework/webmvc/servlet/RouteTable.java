@@ -0,0 +1,181 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 路由表：字面量路由走精确匹配的哈希表（快速通道），只有真正包含正则的路由才交给RouteTrie。
+ * <p>
+ * 例如 /demo/query.do 不含正则语义，直接按整条路径哈希命中，不再经过任何正则。
+ * 正则路由的匹配结果（包括未匹配）按规范化路径缓存在有界的RouteCache中，热点路径不再重复匹配。
+ *
+ * @author ma
+ * @date 2026/10/18 18:10
+ */
+public final class RouteTable<T> {
+
+    /** 默认缓存容量 */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    /** 精确匹配的字面量路由 */
+    private final LiteralTable<T> exactRoutes;
+
+    /** 包含正则的路由 */
+    private final RouteTrie<T> patternRoutes;
+
+    /** 正则路由的匹配结果缓存，为null表示不缓存 */
+    private final RouteCache<T> cache;
+
+    private final LongAdder exactHits = new LongAdder();
+
+    private final LongAdder patternHits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private RouteTable(LiteralTable<T> exactRoutes, RouteTrie<T> patternRoutes, int cacheSize) {
+        this.exactRoutes = exactRoutes;
+        this.patternRoutes = patternRoutes;
+        this.cache = cacheSize > 0 && patternRoutes.size() > 0 ? new RouteCache<>(cacheSize) : null;
+    }
+
+    /**
+     * 根据请求路径查找路由：先查精确匹配表，未命中再查缓存和正则路由
+     *
+     * @param path 规范化后的请求路径
+     * @return 匹配的路由，未匹配返回null
+     */
+    public T match(CharSequence path) {
+        T value = exactRoutes.get(path);
+        if (value != null) {
+            exactHits.increment();
+            return value;
+        }
+        if (patternRoutes.size() > 0) {
+            if (cache == null) {
+                value = patternRoutes.match(path);
+            } else {
+                RouteCache.Entry<T> entry = cache.get(path);
+                if (entry != null) {
+                    value = entry.value;
+                } else {
+                    value = patternRoutes.match(path);
+                    cache.put(path, value);
+                }
+            }
+            if (value != null) {
+                patternHits.increment();
+                return value;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 不经过结果缓存、不计入统计的查找（405、OPTIONS判断其他请求方式时使用）
+     *
+     * @param path 规范化后的请求路径
+     * @return 匹配的路由，未匹配返回null
+     */
+    T find(CharSequence path) {
+        T value = exactRoutes.get(path);
+        if (value == null && patternRoutes.size() > 0) {
+            value = patternRoutes.match(path);
+        }
+        return value;
+    }
+
+    public int getExactRouteCount() {
+        return exactRoutes.size();
+    }
+
+    public int getPatternRouteCount() {
+        return patternRoutes.size();
+    }
+
+    public long getExactHits() {
+        return exactHits.sum();
+    }
+
+    public long getPatternHits() {
+        return patternHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getCacheSize() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    public long getCacheHits() {
+        return cache == null ? 0 : cache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return cache == null ? 0 : cache.getMisses();
+    }
+
+    @Override
+    public String toString() {
+        return "RouteTable{exactRoutes=" + getExactRouteCount() + ", patternRoutes=" + getPatternRouteCount()
+                + ", exactHits=" + getExactHits() + ", patternHits=" + getPatternHits()
+                + ", misses=" + getMisses() + ", cacheSize=" + getCacheSize()
+                + ", cacheHits=" + getCacheHits() + ", cacheMisses=" + getCacheMisses() + "}";
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 路由表构建器：只在doInitHandlerMapping阶段使用
+     */
+    public static class Builder<T> {
+
+        private final Map<String, T> exactRoutes = new LinkedHashMap<>();
+
+        private final RouteTrie.Builder<T> patternRoutes = RouteTrie.builder();
+
+        private int cacheSize = DEFAULT_CACHE_SIZE;
+
+        /**
+         * 正则路由结果缓存的容量，0表示不缓存
+         *
+         * @param cacheSize 容量
+         * @return this
+         */
+        public Builder<T> cacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * 注册路由（同一路径先注册者优先）
+         *
+         * @param regex 映射路径（可包含正则）
+         * @param value 路由
+         * @return this
+         */
+        public Builder<T> add(String regex, T value) {
+            String literalPath = RouteTrie.toLiteralPath(regex);
+            if (literalPath != null) {
+                exactRoutes.putIfAbsent(literalPath, value);
+            } else {
+                patternRoutes.add(regex, value);
+            }
+            return this;
+        }
+
+        public RouteTable<T> build() {
+            LiteralTable<T> table = new LiteralTable<>(exactRoutes.size());
+            for (Map.Entry<String, T> entry : exactRoutes.entrySet()) {
+                table.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            return new RouteTable<>(table, patternRoutes.build(), cacheSize);
+        }
+    }
+
+}
@@ -0,0 +1,407 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 路由前缀树：按"/"把映射路径切成段，查找代价只与路径深度有关，与路由数量无关。
+ * <p>
+ * 每个节点的边分为：
+ * 1、字面量段：放在哈希表中，O(1)命中，按路径片段直接查找，无需截取子串；
+ * 2、正则段：只匹配单个段的正则（如 \d+），按注册顺序逐个尝试；
+ * 3、通配段：[^/]+ / [^/]* 匹配任意单个段，无需跑正则；
+ * 4、全匹配段：末尾的 .* / .+ 匹配剩余全部路径，无需跑正则；
+ * 5、尾部路由：可能跨越"/"的正则（如 a.*b、[^x]、\S），从该节点起用完整正则校验。
+ * 构建完成后树结构不再变化，可无锁并发读取。
+ *
+ * @author ma
+ * @date 2026/10/18 10:12
+ */
+public class RouteTrie<T> {
+
+    private final Node<T> root;
+
+    private final int size;
+
+    private RouteTrie(Node<T> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 根据请求路径查找路由
+     *
+     * @param path 规范化后的请求路径
+     * @return 匹配的路由，未匹配返回null
+     */
+    public T match(CharSequence path) {
+        if (path.length() == 0 || path.charAt(0) != '/') {
+            // 不以"/"开头的路径只可能被根节点上的尾部路由匹配
+            return root.matchTail(path);
+        }
+        return root.match(path, 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 前缀树构建器：只在doInitHandlerMapping阶段使用
+     */
+    public static class Builder<T> {
+
+        private final MutableNode<T> root = new MutableNode<>();
+
+        private int size;
+
+        /**
+         * 注册路由（同一路径先注册者优先）
+         *
+         * @param regex 映射路径（可包含正则）
+         * @param value 路由
+         * @return this
+         */
+        public Builder<T> add(String regex, T value) {
+            Pattern pattern = Pattern.compile(regex);
+            List<String> segments = split(regex);
+            MutableNode<T> node = root;
+            if (segments == null) {
+                // 无法按段拆分（顶层 | 、括号中含"/"、不以"/"开头等），整条路由交给正则
+                node.tails.add(new Tail<>(pattern, value));
+                size++;
+                return this;
+            }
+            for (int i = 0; i < segments.size(); i++) {
+                String segment = segments.get(i);
+                boolean last = i == segments.size() - 1;
+                String literal = toLiteral(segment);
+                if (literal != null) {
+                    node = node.literals.computeIfAbsent(literal, k -> new MutableNode<>());
+                } else if ("[^/]+".equals(segment) || "[^/]*".equals(segment)) {
+                    MutableNode<T> child = "[^/]+".equals(segment) ? node.wildcard : node.optionalWildcard;
+                    if (child == null) {
+                        child = new MutableNode<>();
+                        if ("[^/]+".equals(segment)) {
+                            node.wildcard = child;
+                        } else {
+                            node.optionalWildcard = child;
+                        }
+                    }
+                    node = child;
+                } else if (last && (".*".equals(segment) || ".+".equals(segment))) {
+                    if (".*".equals(segment)) {
+                        node.catchAll = node.catchAll == null ? value : node.catchAll;
+                    } else {
+                        node.catchAllNonEmpty = node.catchAllNonEmpty == null ? value : node.catchAllNonEmpty;
+                    }
+                    size++;
+                    return this;
+                } else if (mayCrossSegment(segment)) {
+                    node.tails.add(new Tail<>(pattern, value));
+                    size++;
+                    return this;
+                } else {
+                    MutableNode<T> child = node.patterns.get(segment);
+                    if (child == null) {
+                        child = new MutableNode<>();
+                        child.segmentPattern = Pattern.compile(segment);
+                        node.patterns.put(segment, child);
+                    }
+                    node = child;
+                }
+            }
+            if (node.value == null) {
+                node.value = value;
+            }
+            size++;
+            return this;
+        }
+
+        public RouteTrie<T> build() {
+            return new RouteTrie<>(root.freeze(), size);
+        }
+    }
+
+    /**
+     * 映射路径不含正则语义时，还原为精确匹配的字面量路径
+     *
+     * @param regex 映射路径
+     * @return 字面量路径，包含正则语义时返回null
+     */
+    static String toLiteralPath(String regex) {
+        List<String> segments = split(regex);
+        if (segments == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(regex.length());
+        for (String segment : segments) {
+            String literal = toLiteral(segment);
+            if (literal == null) {
+                return null;
+            }
+            sb.append('/').append(literal);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按顶层"/"拆分映射路径
+     *
+     * @param regex 映射路径
+     * @return 段列表（不含开头的空段），无法拆分时返回null
+     */
+    static List<String> split(String regex) {
+        if (regex.isEmpty() || regex.charAt(0) != '/') {
+            return null;
+        }
+        List<String> segments = new ArrayList<>();
+        int depth = 0;
+        boolean inClass = false;
+        int start = 1;
+        for (int i = 1; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inClass) {
+                if (c == ']') {
+                    inClass = false;
+                }
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                // 顶层的或运算作用于整条路径
+                return null;
+            } else if (c == '/') {
+                if (depth > 0) {
+                    return null;
+                }
+                segments.add(regex.substring(start, i));
+                start = i + 1;
+            }
+        }
+        segments.add(regex.substring(start));
+        for (String segment : segments) {
+            // 量词紧跟在"/"后面，作用对象是"/"本身
+            if (!segment.isEmpty() && "?*+{".indexOf(segment.charAt(0)) >= 0) {
+                return null;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * 将不含正则语义的段还原为字面量：
+     * 未跟量词的"."按字面量处理（如 query.do），转义的符号还原为符号本身。
+     *
+     * @param segment 段
+     * @return 字面量，段包含正则语义时返回null
+     */
+    static String toLiteral(String segment) {
+        StringBuilder sb = null;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= segment.length() || Character.isLetterOrDigit(segment.charAt(i + 1))) {
+                    return null;
+                }
+                if (sb == null) {
+                    sb = new StringBuilder(segment.length()).append(segment, 0, i);
+                }
+                sb.append(segment.charAt(++i));
+                continue;
+            }
+            if (c == '.') {
+                if (i + 1 < segment.length() && "?*+{".indexOf(segment.charAt(i + 1)) >= 0) {
+                    return null;
+                }
+            } else if ("^$|?*+()[]{}".indexOf(c) >= 0) {
+                return null;
+            }
+            if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? segment : sb.toString();
+    }
+
+    /**
+     * 判断段正则是否可能匹配到"/"（保守判断）
+     *
+     * @param segment 段
+     * @return 可能跨段返回true
+     */
+    static boolean mayCrossSegment(String segment) {
+        boolean inClass = false;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < segment.length()) {
+                    char next = segment.charAt(i + 1);
+                    // \S \W \D \p{..} 以及反向引用都可能匹配到"/"
+                    if (Character.isUpperCase(next) || Character.isDigit(next) || next == 'p') {
+                        return true;
+                    }
+                }
+                i++;
+            } else if (inClass) {
+                if (c == ']') {
+                    inClass = false;
+                }
+            } else if (c == '[') {
+                inClass = true;
+                if (i + 1 < segment.length() && segment.charAt(i + 1) == '^') {
+                    return true;
+                }
+            } else if (c == '.') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 需要完整正则校验的路由
+     */
+    private static final class Tail<T> {
+        final Pattern pattern;
+        final T value;
+
+        Tail(Pattern pattern, T value) {
+            this.pattern = pattern;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 构建期的可变节点
+     */
+    private static final class MutableNode<T> {
+        final Map<String, MutableNode<T>> literals = new HashMap<>();
+        final Map<String, MutableNode<T>> patterns = new LinkedHashMap<>();
+        final List<Tail<T>> tails = new ArrayList<>();
+        Pattern segmentPattern;
+        MutableNode<T> wildcard;
+        MutableNode<T> optionalWildcard;
+        T catchAll;
+        T catchAllNonEmpty;
+        T value;
+
+        @SuppressWarnings("unchecked")
+        Node<T> freeze() {
+            LiteralTable<Node<T>> frozenLiterals = new LiteralTable<>(literals.size());
+            for (Map.Entry<String, MutableNode<T>> entry : literals.entrySet()) {
+                frozenLiterals.putIfAbsent(entry.getKey(), entry.getValue().freeze());
+            }
+            Node<T>[] frozenPatterns = new Node[patterns.size()];
+            int i = 0;
+            for (MutableNode<T> child : patterns.values()) {
+                frozenPatterns[i++] = child.freeze();
+            }
+            return new Node<>(frozenLiterals,
+                    frozenPatterns,
+                    tails.toArray(new Tail[0]),
+                    segmentPattern,
+                    wildcard == null ? null : wildcard.freeze(),
+                    optionalWildcard == null ? null : optionalWildcard.freeze(),
+                    catchAll, catchAllNonEmpty, value);
+        }
+    }
+
+    /**
+     * 不可变节点
+     */
+    private static final class Node<T> {
+        final LiteralTable<Node<T>> literals;
+        final Node<T>[] patterns;
+        final Tail<T>[] tails;
+        final Pattern segmentPattern;
+        final Node<T> wildcard;
+        final Node<T> optionalWildcard;
+        final T catchAll;
+        final T catchAllNonEmpty;
+        final T value;
+
+        Node(LiteralTable<Node<T>> literals, Node<T>[] patterns, Tail<T>[] tails, Pattern segmentPattern,
+             Node<T> wildcard, Node<T> optionalWildcard, T catchAll, T catchAllNonEmpty, T value) {
+            this.literals = literals;
+            this.patterns = patterns;
+            this.tails = tails;
+            this.segmentPattern = segmentPattern;
+            this.wildcard = wildcard;
+            this.optionalWildcard = optionalWildcard;
+            this.catchAll = catchAll;
+            this.catchAllNonEmpty = catchAllNonEmpty;
+            this.value = value;
+        }
+
+        /**
+         * 匹配从pos开始的剩余路径（优先级：字面量 > 正则段 > 通配段 > 全匹配段 > 尾部路由）
+         *
+         * @param path 请求路径
+         * @param pos 当前段的起始位置，大于路径长度表示所有段已消费完
+         * @return 匹配的路由
+         */
+        T match(CharSequence path, int pos) {
+            int length = path.length();
+            if (pos > length) {
+                return value != null ? value : matchTail(path);
+            }
+            int end = pos;
+            while (end < length && path.charAt(end) != '/') {
+                end++;
+            }
+            T found;
+            if (!literals.isEmpty()) {
+                Node<T> child = literals.get(path, pos, end);
+                if (child != null && (found = child.match(path, end + 1)) != null) {
+                    return found;
+                }
+            }
+            if (patterns.length > 0) {
+                for (Node<T> child : patterns) {
+                    // region()限定匹配范围，正则的边界即段的边界
+                    if (child.segmentPattern.matcher(path).region(pos, end).matches()
+                            && (found = child.match(path, end + 1)) != null) {
+                        return found;
+                    }
+                }
+            }
+            if (wildcard != null && end > pos && (found = wildcard.match(path, end + 1)) != null) {
+                return found;
+            }
+            if (optionalWildcard != null && (found = optionalWildcard.match(path, end + 1)) != null) {
+                return found;
+            }
+            if (catchAll != null) {
+                return catchAll;
+            }
+            if (catchAllNonEmpty != null && length > pos) {
+                return catchAllNonEmpty;
+            }
+            return matchTail(path);
+        }
+
+        T matchTail(CharSequence path) {
+            for (Tail<T> tail : tails) {
+                if (tail.pattern.matcher(path).matches()) {
+                    return tail.value;
+                }
+            }
+            return null;
+        }
+    }
+
+}
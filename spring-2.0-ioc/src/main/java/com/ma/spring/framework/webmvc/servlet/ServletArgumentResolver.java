@@ -0,0 +1,30 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * HttpServletRequest、HttpServletResponse形参的解析器
+ *
+ * @author ma
+ * @date 2026/10/18 13:42
+ */
+public enum ServletArgumentResolver implements ArgumentResolver {
+
+    /** 请求 */
+    REQUEST {
+        @Override
+        public Object resolve(HttpServletRequest req, HttpServletResponse resp) {
+            return req;
+        }
+    },
+
+    /** 响应 */
+    RESPONSE {
+        @Override
+        public Object resolve(HttpServletRequest req, HttpServletResponse resp) {
+            return resp;
+        }
+    }
+
+}
@@ -0,0 +1,457 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import com.ma.spring.framework.annotation.RequestMethod;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 静态资源处理：请求路径以staticPath（如 /static/）开头且没有匹配的映射方法时，
+ * 依次从webapp目录、classpath下的同名目录查找文件并输出。
+ * <p>
+ * 1、ETag、Last-Modified在首次访问时计算，之后每秒最多检查一次文件是否变化，支持304；
+ * 2、存在 .br / .gz 预压缩文件且客户端支持时，直接输出压缩文件；
+ * 3、访问过多次的小文件用FileChannel.map映射到内存，映射总大小不超过staticCacheSize；
+ * 4、大文件在Tomcat支持sendfile时交给容器零拷贝发送，否则用FileChannel.transferTo输出。
+ * classpath中的资源只支持目录形式（如 target/classes），jar包中的资源不处理。
+ *
+ * @author ma
+ * @date 2026/10/19 00:20
+ */
+final class StaticResourceHandler {
+
+    /** 默认的映射总大小上限：64M */
+    static final long DEFAULT_CACHE_SIZE = 64L * 1024 * 1024;
+
+    /** 超过该长度的文件不映射 */
+    static final long MAX_MAPPED_FILE = 1024 * 1024;
+
+    /** 超过该长度的文件优先使用sendfile */
+    static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    /** 访问多少次后映射到内存 */
+    private static final int HOT_HITS = 2;
+
+    /** 检查文件是否变化的间隔（毫秒） */
+    private static final long CHECK_INTERVAL = 1000L;
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final DateTimeFormatter HTTP_DATE =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    /** 请求路径前缀，以"/"开头和结尾 */
+    private final String staticPath;
+
+    private final ServletContext servletContext;
+
+    private final ClassLoader classLoader;
+
+    private final long cacheSize;
+
+    /** 已映射的字节数 */
+    private final AtomicLong mappedBytes = new AtomicLong();
+
+    /** 请求路径 -> 资源（只缓存存在的文件） */
+    private final ConcurrentHashMap<String, StaticResource> resources = new ConcurrentHashMap<>();
+
+    /**
+     * @param staticPath 请求路径前缀（如 /static/）
+     * @param servletContext Servlet上下文
+     * @param cacheSize 映射总大小上限（字节）
+     */
+    StaticResourceHandler(String staticPath, ServletContext servletContext, long cacheSize) {
+        String path = staticPath.startsWith("/") ? staticPath : "/" + staticPath;
+        this.staticPath = path.endsWith("/") ? path : path + "/";
+        this.servletContext = servletContext;
+        this.classLoader = Thread.currentThread().getContextClassLoader();
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * 处理静态资源请求
+     *
+     * @param req 请求
+     * @param resp 响应
+     * @param method 请求方式
+     * @param url 规范化后的请求路径
+     * @return 找到资源并已输出返回true
+     */
+    boolean handle(HttpServletRequest req, HttpServletResponse resp, RequestMethod method, RequestPath url)
+            throws IOException {
+        if ((method != RequestMethod.GET && method != RequestMethod.HEAD) || !startsWith(url, staticPath)) {
+            return false;
+        }
+        String key = url.toString();
+        StaticResource resource = resources.get(key);
+        if (resource != null && resource.isStale()) {
+            if (resources.remove(key, resource)) {
+                resource.release();
+            }
+            resource = null;
+        }
+        if (resource == null) {
+            Path file = this.resolve(key.substring(staticPath.length()));
+            if (file == null) {
+                return false;
+            }
+            resource = new StaticResource(file);
+            StaticResource existing = resources.putIfAbsent(key, resource);
+            if (existing != null) {
+                resource = existing;
+            }
+        }
+        resource.write(req, resp, method == RequestMethod.HEAD);
+        return true;
+    }
+
+    /**
+     * 查找文件：先webapp目录，再classpath
+     *
+     * @param relative staticPath之后的相对路径（未解码）
+     * @return 文件，不存在或路径不安全时返回null
+     */
+    private Path resolve(String relative) {
+        relative = decode(relative);
+        if (relative == null || !isSafe(relative)) {
+            return null;
+        }
+        String realPath = servletContext.getRealPath(staticPath + relative);
+        if (realPath != null) {
+            Path file = Paths.get(realPath);
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+        URL url = classLoader.getResource(staticPath.substring(1) + relative);
+        if (url != null && "file".equals(url.getProtocol())) {
+            try {
+                Path file = Paths.get(url.toURI());
+                if (Files.isRegularFile(file)) {
+                    return file;
+                }
+            } catch (URISyntaxException | IllegalArgumentException ignored) {
+                // 无法转换为文件路径
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWith(CharSequence path, String prefix) {
+        if (path.length() <= prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (path.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解码路径中的%XX（"+"不是空格）
+     */
+    private static String decode(String path) {
+        if (path.indexOf('%') < 0) {
+            return path;
+        }
+        try {
+            return URLDecoder.decode(path.replace("+", "%2B"), "UTF-8");
+        } catch (IllegalArgumentException | UnsupportedEncodingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 拒绝访问上级目录、WEB-INF、META-INF以及包含特殊字符的路径
+     */
+    private static boolean isSafe(String relative) {
+        if (relative.isEmpty() || relative.indexOf('\\') >= 0 || relative.indexOf('\0') >= 0
+                || relative.indexOf(':') >= 0) {
+            return false;
+        }
+        for (String segment : relative.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment) || "..".equals(segment)
+                    || "WEB-INF".equalsIgnoreCase(segment) || "META-INF".equalsIgnoreCase(segment)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断客户端是否接受指定的内容编码（q=0表示不接受）
+     */
+    private static boolean acceptsEncoding(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            int semicolon = token.indexOf(';');
+            String name = (semicolon < 0 ? token : token.substring(0, semicolon)).trim();
+            if (name.equalsIgnoreCase(coding)) {
+                return semicolon < 0 || !token.substring(semicolon + 1).replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 预留映射空间
+     */
+    private boolean reserve(long length) {
+        for (;;) {
+            long current = mappedBytes.get();
+            if (current + length > cacheSize) {
+                return false;
+            }
+            if (mappedBytes.compareAndSet(current, current + length)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return 已映射的字节数
+     */
+    long getMappedBytes() {
+        return mappedBytes.get();
+    }
+
+    /**
+     * 一个静态文件：原文件以及预压缩文件
+     */
+    private final class StaticResource {
+
+        final Path file;
+        final long lastModified;
+        final String lastModifiedHeader;
+        final String contentType;
+        final Variant identity;
+        final Variant brotli;
+        final Variant gzip;
+        volatile long checkedAt;
+
+        StaticResource(Path file) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            this.file = file;
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+            this.lastModifiedHeader = HTTP_DATE.format(Instant.ofEpochMilli(lastModified));
+            this.contentType = servletContext.getMimeType(file.getFileName().toString());
+            String tag = Long.toHexString(attributes.size()) + "-" + Long.toHexString(lastModified);
+            this.identity = new Variant(file, attributes.size(), "\"" + tag + "\"", null);
+            this.brotli = variant(file.resolveSibling(file.getFileName() + ".br"), tag, "br");
+            this.gzip = variant(file.resolveSibling(file.getFileName() + ".gz"), tag, "gzip");
+            this.checkedAt = System.currentTimeMillis();
+        }
+
+        private Variant variant(Path compressed, String tag, String encoding) throws IOException {
+            if (!Files.isRegularFile(compressed)) {
+                return null;
+            }
+            return new Variant(compressed, Files.size(compressed), "\"" + tag + "-" + encoding + "\"", encoding);
+        }
+
+        /**
+         * 每秒最多检查一次文件是否变化或被删除
+         */
+        boolean isStale() {
+            long now = System.currentTimeMillis();
+            if (now - checkedAt < CHECK_INTERVAL) {
+                return false;
+            }
+            checkedAt = now;
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return attributes.lastModifiedTime().toMillis() != lastModified || attributes.size() != identity.length;
+            } catch (IOException e) {
+                return true;
+            }
+        }
+
+        void write(HttpServletRequest req, HttpServletResponse resp, boolean headOnly) throws IOException {
+            Variant variant = identity;
+            if (brotli != null || gzip != null) {
+                resp.setHeader("Vary", "Accept-Encoding");
+                String acceptEncoding = req.getHeader("Accept-Encoding");
+                if (brotli != null && acceptsEncoding(acceptEncoding, "br")) {
+                    variant = brotli;
+                } else if (gzip != null && acceptsEncoding(acceptEncoding, "gzip")) {
+                    variant = gzip;
+                }
+            }
+            resp.setHeader("ETag", variant.etag);
+            resp.setHeader("Last-Modified", lastModifiedHeader);
+            if (this.isNotModified(req, variant)) {
+                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            if (contentType != null) {
+                resp.setContentType(contentType);
+            }
+            if (variant.encoding != null) {
+                resp.setHeader("Content-Encoding", variant.encoding);
+            }
+            resp.setContentLengthLong(variant.length);
+            if (!headOnly) {
+                variant.writeBody(req, resp);
+            }
+        }
+
+        /**
+         * If-None-Match优先于If-Modified-Since
+         */
+        private boolean isNotModified(HttpServletRequest req, Variant variant) {
+            String ifNoneMatch = req.getHeader("If-None-Match");
+            if (ifNoneMatch != null) {
+                for (String tag : ifNoneMatch.split(",")) {
+                    tag = tag.trim();
+                    if (tag.startsWith("W/")) {
+                        tag = tag.substring(2);
+                    }
+                    if ("*".equals(tag) || variant.etag.equals(tag)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            long ifModifiedSince;
+            try {
+                ifModifiedSince = req.getDateHeader("If-Modified-Since");
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            // HTTP日期精确到秒
+            return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+        }
+
+        void release() {
+            identity.release();
+            if (brotli != null) {
+                brotli.release();
+            }
+            if (gzip != null) {
+                gzip.release();
+            }
+        }
+    }
+
+    /**
+     * 文件的一种编码形式
+     */
+    private final class Variant {
+
+        final Path file;
+        final long length;
+        final String etag;
+        final String encoding;
+        /** 访问次数（只用于判断是否映射，不要求精确） */
+        int hits;
+        volatile MappedByteBuffer mapped;
+        boolean released;
+
+        Variant(Path file, long length, String etag, String encoding) {
+            this.file = file;
+            this.length = length;
+            this.etag = etag;
+            this.encoding = encoding;
+        }
+
+        void writeBody(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            if (length == 0) {
+                return;
+            }
+            if (length >= SENDFILE_THRESHOLD && !req.isAsyncStarted()
+                    && Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+                // 交给Tomcat在请求结束后用sendfile发送，不经过用户态缓冲区
+                req.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                req.setAttribute(SENDFILE_START, 0L);
+                req.setAttribute(SENDFILE_END, length);
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(resp.getOutputStream());
+            ByteBuffer buffer = this.mapped();
+            if (buffer != null) {
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long position = 0;
+                while (position < length) {
+                    long n = channel.transferTo(position, length - position, out);
+                    if (n <= 0) {
+                        break;
+                    }
+                    position += n;
+                }
+            }
+        }
+
+        /**
+         * 热点小文件映射到内存
+         *
+         * @return 映射内容的独立视图，未映射返回null
+         */
+        private ByteBuffer mapped() throws IOException {
+            MappedByteBuffer buffer = mapped;
+            if (buffer != null) {
+                return buffer.duplicate();
+            }
+            if (length > MAX_MAPPED_FILE || ++hits < HOT_HITS) {
+                return null;
+            }
+            synchronized (this) {
+                if (mapped == null && !released && reserve(length)) {
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                    } catch (IOException | RuntimeException e) {
+                        mappedBytes.addAndGet(-length);
+                        throw e;
+                    }
+                }
+                buffer = mapped;
+            }
+            return buffer == null ? null : buffer.duplicate();
+        }
+
+        /**
+         * 文件变化后归还映射空间，映射内存在缓冲区被回收时释放
+         */
+        synchronized void release() {
+            released = true;
+            if (mapped != null) {
+                mapped = null;
+                mappedBytes.addAndGet(-length);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,286 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.BaseStream;
+
+/**
+ * 流式返回值写出：映射方法返回Stream、Iterator或ResponseEmitter时逐个元素写出，不在内存中汇总。
+ * <p>
+ * 默认输出JSON数组（不设置Content-Length，容器按分块传输），每写出一批元素刷新一次；
+ * 请求头Accept包含text/event-stream时按SSE格式每个元素输出一个data事件。
+ * 写出时抛出IOException视为客户端断开：关闭Stream（触发onClose回调）或取消ResponseEmitter。
+ * 输出中途出错、关闭Stream出错交给ErrorLogger（限流、异步），大量客户端同时断开时不会在写出线程中逐个打印堆栈。
+ *
+ * @author ma
+ * @date 2026/10/18 23:40
+ */
+final class StreamingResponseWriter {
+
+    static final String EVENT_STREAM_CONTENT_TYPE = "text/event-stream;charset=UTF-8";
+
+    /** 每写出多少个元素刷新一次 */
+    static final int FLUSH_BATCH = 64;
+
+    /** 输出缓冲区长度 */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** ResponseEmitter队列为空时，检查结束和取消的间隔（毫秒） */
+    private static final long POLL_INTERVAL = 1000L;
+
+    private StreamingResponseWriter() {
+    }
+
+    /**
+     * 是否为需要在当前线程流式写出的返回值（ResponseEmitter由AsyncHandlerSupport异步写出）
+     *
+     * @param returnValue 返回值
+     * @return 是返回true
+     */
+    static boolean isStreamingResult(Object returnValue) {
+        return returnValue instanceof BaseStream || returnValue instanceof Iterator;
+    }
+
+    /**
+     * 在当前线程逐个写出Stream或Iterator的元素，写完或客户端断开后关闭Stream
+     *
+     * @param req 请求
+     * @param resp 响应
+     * @param returnValue Stream或Iterator
+     * @param errorLogger 未处理异常的日志
+     */
+    static void write(HttpServletRequest req, HttpServletResponse resp, Object returnValue, ErrorLogger errorLogger)
+            throws IOException {
+        Iterator<?> iterator;
+        AutoCloseable closeable = null;
+        if (returnValue instanceof BaseStream) {
+            BaseStream<?, ?> stream = (BaseStream<?, ?>) returnValue;
+            iterator = stream.iterator();
+            closeable = stream;
+        } else {
+            iterator = (Iterator<?>) returnValue;
+            if (returnValue instanceof AutoCloseable) {
+                closeable = (AutoCloseable) returnValue;
+            }
+        }
+        Output out = new Output(req, resp, errorLogger);
+        try {
+            int batch = 0;
+            while (iterator.hasNext()) {
+                out.writeItem(iterator.next());
+                if (++batch == FLUSH_BATCH) {
+                    out.flush();
+                    batch = 0;
+                }
+            }
+            out.finish();
+        } catch (IOException e) {
+            // 客户端断开，停止读取剩余元素
+        } catch (RuntimeException e) {
+            if (!resp.isCommitted()) {
+                resp.resetBuffer();
+                throw e;
+            }
+            // 响应头已经发出，只能中断输出
+            out.error(e);
+        } finally {
+            close(req, closeable, errorLogger);
+        }
+    }
+
+    /**
+     * 取出ResponseEmitter推送的元素并写出，直到推送结束或客户端断开
+     *
+     * @param req 请求
+     * @param resp 响应
+     * @param emitter 推送式返回值
+     * @param errorLogger 未处理异常的日志
+     */
+    static void drain(HttpServletRequest req, HttpServletResponse resp, ResponseEmitter emitter,
+                      ErrorLogger errorLogger) {
+        Output out = new Output(req, resp, errorLogger);
+        try {
+            int batch = 0;
+            for (;;) {
+                Object item = emitter.poll(0);
+                if (item == null) {
+                    // 队列已取空：先把已写出的元素刷给客户端，再等待下一个
+                    out.flush();
+                    batch = 0;
+                    if (emitter.isCancelled() || (emitter.isCompleted() && emitter.isDrained())) {
+                        break;
+                    }
+                    item = emitter.poll(POLL_INTERVAL);
+                    if (item == null) {
+                        continue;
+                    }
+                }
+                if (item == ResponseEmitter.END) {
+                    break;
+                }
+                out.writeItem(item);
+                if (++batch == FLUSH_BATCH) {
+                    out.flush();
+                    batch = 0;
+                }
+            }
+            if (emitter.isCancelled()) {
+                return;
+            }
+            if (emitter.getFailure() != null) {
+                out.error(emitter.getFailure());
+            } else {
+                out.finish();
+            }
+        } catch (IOException e) {
+            // 客户端断开，唤醒阻塞在send()上的业务线程
+            emitter.cancel();
+        } catch (InterruptedException e) {
+            emitter.cancel();
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            emitter.cancel();
+            throw e;
+        }
+    }
+
+    private static void close(HttpServletRequest req, AutoCloseable closeable, ErrorLogger errorLogger) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            errorLogger.log(req, e);
+        }
+    }
+
+    /**
+     * 判断客户端是否要求SSE格式
+     */
+    private static boolean acceptsEventStream(HttpServletRequest req) {
+        String accept = req.getHeader("Accept");
+        return accept != null && accept.contains("text/event-stream");
+    }
+
+    /**
+     * 一次流式响应的输出状态
+     */
+    private static final class Output {
+
+        private final HttpServletRequest req;
+
+        private final HttpServletResponse resp;
+
+        private final ErrorLogger errorLogger;
+
+        private final boolean eventStream;
+
+        private JsonWriter json;
+
+        private int count;
+
+        Output(HttpServletRequest req, HttpServletResponse resp, ErrorLogger errorLogger) {
+            this.req = req;
+            this.resp = resp;
+            this.errorLogger = errorLogger;
+            this.eventStream = acceptsEventStream(req);
+        }
+
+        /**
+         * 写出第一个元素前才设置响应头，异常仍可按普通请求处理
+         */
+        private JsonWriter json() throws IOException {
+            if (json == null) {
+                if (resp.getContentType() == null) {
+                    resp.setContentType(eventStream ? EVENT_STREAM_CONTENT_TYPE : ResponseBodyWriter.JSON_CONTENT_TYPE);
+                }
+                if (eventStream) {
+                    resp.setHeader("Cache-Control", "no-cache");
+                }
+                json = new JsonWriter(ResponseBodyWriter.buffer(BUFFER_SIZE), resp::getOutputStream);
+                if (!eventStream) {
+                    json.writeByte('[');
+                }
+            }
+            return json;
+        }
+
+        void writeItem(Object item) throws IOException {
+            JsonWriter out = json();
+            if (eventStream) {
+                // 每个元素一个事件：文本按行输出，其他对象输出为一行JSON
+                if (item instanceof CharSequence) {
+                    writeData(out, (CharSequence) item);
+                } else {
+                    out.writeAscii("data: ");
+                    out.writeValue(item);
+                    out.writeByte('\n');
+                }
+                out.writeByte('\n');
+            } else {
+                if (count > 0) {
+                    out.writeByte(',');
+                }
+                out.writeValue(item);
+            }
+            count++;
+        }
+
+        /**
+         * 文本中的换行拆成多行data
+         */
+        private void writeData(JsonWriter out, CharSequence text) throws IOException {
+            int start = 0;
+            int length = text.length();
+            for (int i = 0; i <= length; i++) {
+                if (i == length || text.charAt(i) == '\n') {
+                    int end = i > start && text.charAt(i - 1) == '\r' ? i - 1 : i;
+                    out.writeAscii("data: ");
+                    out.writeUtf8(text.subSequence(start, end));
+                    out.writeByte('\n');
+                    start = i + 1;
+                }
+            }
+        }
+
+        /**
+         * 把已写出的元素推送给客户端
+         */
+        void flush() throws IOException {
+            if (json != null) {
+                json.flush();
+                resp.flushBuffer();
+            }
+        }
+
+        void finish() throws IOException {
+            JsonWriter out = json();
+            if (!eventStream) {
+                out.writeByte(']');
+            }
+            flush();
+        }
+
+        /**
+         * 输出中途出错：SSE格式写出error事件，JSON数组不再闭合，客户端可据此判断输出不完整
+         */
+        void error(Throwable error) {
+            errorLogger.log(req, error);
+            try {
+                if (eventStream) {
+                    JsonWriter out = json();
+                    out.writeAscii("event: error\n");
+                    writeData(out, String.valueOf(error.getMessage()));
+                    out.writeByte('\n');
+                }
+                flush();
+            } catch (IOException ignored) {
+                // 客户端已断开
+            }
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+/**
+ * UTF-8编码：直接把字符写入字节数组，ASCII字符走快速路径，不经过CharsetEncoder
+ *
+ * @author ma
+ * @date 2026/10/18 20:30
+ */
+final class Utf8 {
+
+    private Utf8() {
+    }
+
+    /**
+     * 计算UTF-8编码后的字节数
+     *
+     * @param s 字符序列
+     * @return 字节数
+     */
+    static int encodedLength(CharSequence s) {
+        int length = s.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                bytes += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                // 代理对：2个char编码为4个字节
+                bytes += 2;
+                i++;
+            } else {
+                bytes += 2;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 编码到字节数组，调用方需保证剩余空间不小于encodedLength
+     *
+     * @param s 字符序列
+     * @param dst 目标数组
+     * @param offset 写入位置
+     * @return 写入后的位置
+     */
+    static int encode(CharSequence s, byte[] dst, int offset) {
+        int length = s.length();
+        int i = 0;
+        int p = offset;
+        // ASCII快速路径
+        for (char c; i < length && (c = s.charAt(i)) < 0x80; i++) {
+            dst[p++] = (byte) c;
+        }
+        for (; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                dst[p++] = (byte) c;
+            } else if (c < 0x800) {
+                dst[p++] = (byte) (0xc0 | (c >> 6));
+                dst[p++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                dst[p++] = (byte) (0xf0 | (cp >> 18));
+                dst[p++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                dst[p++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                dst[p++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // 孤立的代理字符替换为'?'
+                dst[p++] = '?';
+            } else {
+                dst[p++] = (byte) (0xe0 | (c >> 12));
+                dst[p++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                dst[p++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return p;
+    }
+
+}
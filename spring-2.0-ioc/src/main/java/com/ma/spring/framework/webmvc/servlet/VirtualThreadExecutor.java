@@ -0,0 +1,151 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 虚拟线程执行器：每次映射方法调用一个虚拟线程（executionMode=virtual）。
+ * <p>
+ * 项目按Java 8编译，虚拟线程相关API（Executors.newVirtualThreadPerTaskExecutor、JFR事件流）都通过反射获取，
+ * JVM不支持时create()返回null，由调用方回退到容器线程执行。
+ * 支持JFR事件流时订阅jdk.VirtualThreadPinned事件，统计虚拟线程钉住载体线程的次数；
+ * DispatcherServlet把执行器放在ServletContext的属性VIRTUAL_THREAD_EXECUTOR_ATTRIBUTE中，运行期间可以随时读取统计。
+ *
+ * @author ma
+ * @date 2026/10/18 23:10
+ */
+public final class VirtualThreadExecutor implements Executor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /** Thread.isVirtual()，JVM不支持虚拟线程时为null */
+    private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+
+    private final ExecutorService executor;
+
+    /** JFR事件流（jdk.jfr.consumer.RecordingStream），不支持时为null */
+    private final AutoCloseable recordingStream;
+
+    private final LongAdder submitted = new LongAdder();
+
+    private final LongAdder pinnedEvents = new LongAdder();
+
+    private VirtualThreadExecutor(ExecutorService executor) {
+        this.executor = executor;
+        this.recordingStream = this.startPinnedEventStream();
+    }
+
+    /**
+     * 创建虚拟线程执行器
+     *
+     * @return 执行器，JVM不支持虚拟线程时返回null
+     */
+    static VirtualThreadExecutor create() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        return executor == null ? null : new VirtualThreadExecutor(executor);
+    }
+
+    /**
+     * 每个任务一个虚拟线程的ExecutorService
+     *
+     * @return 执行器，JVM不支持虚拟线程时返回null
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // Java 21之前没有该方法；Java 19、20未开启预览特性时抛出UnsupportedOperationException
+            return null;
+        }
+    }
+
+    private static MethodHandle findIsVirtual() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 当前线程是否为虚拟线程：虚拟线程每个请求一个，用完即丢，线程局部缓存不会被复用，
+     * 反而为每个虚拟线程多创建一份ThreadLocalMap和缓存对象
+     *
+     * @return 是返回true
+     */
+    static boolean isVirtualThread() {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submitted.increment();
+        executor.execute(command);
+    }
+
+    /**
+     * 订阅虚拟线程钉住载体线程的JFR事件
+     *
+     * @return 事件流，不支持时返回null
+     */
+    private AutoCloseable startPinnedEventStream() {
+        try {
+            Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+            Object stream = streamClass.getConstructor().newInstance();
+            streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+            Consumer<Object> counter = event -> pinnedEvents.increment();
+            streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, counter);
+            streamClass.getMethod("startAsync").invoke(stream);
+            return (AutoCloseable) stream;
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            System.err.println("Virtual thread pinned events unavailable: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * @return 提交的映射方法调用次数
+     */
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * @return 虚拟线程钉住载体线程的事件数，不支持JFR事件流时为-1
+     */
+    public long getPinnedEvents() {
+        return recordingStream == null ? -1 : pinnedEvents.sum();
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+        if (recordingStream != null) {
+            try {
+                recordingStream.close();
+            } catch (Exception ignored) {
+                // 关闭失败不影响停机
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualThreadExecutor{submitted=" + getSubmitted() + ", pinnedEvents=" + getPinnedEvents() + "}";
+    }
+
+}
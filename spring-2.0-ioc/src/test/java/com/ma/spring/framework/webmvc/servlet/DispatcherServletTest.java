@@ -0,0 +1,253 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 分发请求：稳定状态下每次doDispatch()（DispatchContext的acquire、parsePath、arguments、release，
+ * 路由匹配、参数解析、调用映射方法、写出常量响应）的分配量
+ *
+ * @author ma
+ * @date 2026/10/19 05:00
+ */
+public class DispatcherServletTest {
+
+    private static final int WARM_UP = 200000;
+
+    private static final int ITERATIONS = 100000;
+
+    private static DispatcherServlet servlet;
+
+    @BeforeClass
+    public static void init() {
+        servlet = new DispatcherServlet();
+        servlet.init(new StubConfig());
+    }
+
+    @Test
+    public void dispatch() throws Exception {
+        StubResponse resp = new StubResponse();
+        servlet.service(new StubRequest("/app/demo/query.do"), resp);
+        assertEquals(HttpServletResponse.SC_OK, resp.status);
+        assertEquals(2, resp.out.count);
+
+        resp = new StubResponse();
+        servlet.service(new StubRequest("/app//demo/42.do"), resp);
+        assertEquals(6, resp.out.count);
+    }
+
+    /**
+     * 复用同一组请求、响应对象反复分发，只测量分发本身的分配
+     */
+    @Test
+    public void dispatchAllocation() throws Exception {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        StubRequest[] requests = {new StubRequest("/app/demo/query.do"), new StubRequest("/app/demo/42.do")};
+        StubResponse resp = new StubResponse();
+        for (int i = 0; i < WARM_UP; i++) {
+            servlet.service(requests[i % requests.length], resp.clear());
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            servlet.service(requests[i % requests.length], resp.clear());
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(HttpServletResponse.SC_OK, resp.status);
+        long perDispatch = allocated / ITERATIONS;
+        // 上下文、路径、实参数组和响应缓冲区都在线程内复用，每次分发只允许少量分配
+        assertTrue("allocated " + perDispatch + " bytes per dispatch", perDispatch < 64);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T unsupported(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static final class StubConfig implements ServletConfig {
+
+        private final ServletContext servletContext = unsupported(ServletContext.class);
+
+        @Override
+        public String getServletName() {
+            return "dispatcher";
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return servletContext;
+        }
+
+        @Override
+        public String getInitParameter(String name) {
+            return "contextConfigLocation".equals(name) ? "dispatch-test.properties" : null;
+        }
+
+        @Override
+        public Enumeration<String> getInitParameterNames() {
+            return Collections.enumeration(Collections.singletonList("contextConfigLocation"));
+        }
+    }
+
+    private static final class StubRequest extends HttpServletRequestWrapper {
+
+        private static final Map<String, String[]> PARAMETERS =
+                Collections.singletonMap("name", new String[]{"ma"});
+
+        private final String uri;
+
+        StubRequest(String uri) {
+            super(unsupported(HttpServletRequest.class));
+            this.uri = uri;
+        }
+
+        @Override
+        public String getMethod() {
+            return "GET";
+        }
+
+        @Override
+        public String getRequestURI() {
+            return uri;
+        }
+
+        @Override
+        public String getContextPath() {
+            return "/app";
+        }
+
+        @Override
+        public Map<String, String[]> getParameterMap() {
+            return PARAMETERS;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return null;
+        }
+
+        @Override
+        public boolean isAsyncSupported() {
+            return false;
+        }
+
+        @Override
+        public ServletRequest getRequest() {
+            throw new UnsupportedOperationException("getRequest");
+        }
+    }
+
+    private static final class StubResponse extends HttpServletResponseWrapper {
+
+        private final CountingOutputStream out = new CountingOutputStream();
+
+        private String contentType;
+
+        private int status;
+
+        StubResponse() {
+            super(unsupported(HttpServletResponse.class));
+            this.clear();
+        }
+
+        StubResponse clear() {
+            contentType = null;
+            status = SC_OK;
+            out.count = 0;
+            return this;
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public void setContentType(String type) {
+            contentType = type;
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            return "UTF-8";
+        }
+
+        @Override
+        public void setContentLength(int len) {
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            status = sc;
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return out;
+        }
+
+        @Override
+        public ServletResponse getResponse() {
+            throw new UnsupportedOperationException("getResponse");
+        }
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+
+        private int count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+
+}
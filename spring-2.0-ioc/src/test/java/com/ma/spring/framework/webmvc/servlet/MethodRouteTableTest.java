@@ -0,0 +1,32 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import com.ma.spring.framework.annotation.RequestMethod;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 按请求方式划分的路由表：Allow头取匹配该路径的所有路由的请求方式
+ *
+ * @author ma
+ * @date 2026/10/19 05:20
+ */
+public class MethodRouteTableTest {
+
+    @Test
+    public void allowedMethodsAreUnionOfMatchingRoutes() {
+        MethodRouteTable<String> table = MethodRouteTable.<String>builder()
+                .add("/demo/42.do", new RequestMethod[]{RequestMethod.POST}, "create")
+                .add("/demo/[0-9]+\\.do", new RequestMethod[]{RequestMethod.GET}, "detail")
+                .build();
+        assertEquals("create", table.match(RequestMethod.POST, "/demo/42.do"));
+        assertEquals("detail", table.match(RequestMethod.GET, "/demo/42.do"));
+        assertEquals("GET, HEAD, POST, OPTIONS", table.getAllowedMethods("/demo/42.do"));
+        assertEquals("GET, HEAD, OPTIONS", table.getAllowedMethods("/demo/7.do"));
+        assertNull(table.getAllowedMethods("/demo/abc.do"));
+        // 只有分发过的/demo/42.do进入缓存，探测的路径不经过结果缓存
+        assertEquals(1, table.getRouteTable(RequestMethod.GET).getCacheSize());
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.ma.spring.framework.webmvc.servlet;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 路由表：命中正则路由结果缓存时不分配对象
+ *
+ * @author ma
+ * @date 2026/10/19 04:40
+ */
+public class RouteTableTest {
+
+    private static final int WARM_UP = 200000;
+
+    private static final int ITERATIONS = 100000;
+
+    @Test
+    public void matchPatternRoute() {
+        RouteTable<String> table = RouteTable.<String>builder()
+                .add("/demo/query.do", "query")
+                .add("/demo/[0-9]+\\.do", "detail")
+                .build();
+        assertEquals("query", table.match(RequestPath.parse("/app/demo/query.do", "/app")));
+        assertEquals("detail", table.match(RequestPath.parse("/app/demo/42.do", "/app")));
+        assertEquals("detail", table.match(RequestPath.parse("/app//demo//42.do", "/app")));
+        assertNull(table.match(RequestPath.parse("/app/demo/abc.do", "/app")));
+        assertNull(table.match(RequestPath.parse("/app/demo/abc.do", "/app")));
+        assertEquals(2, table.getCacheHits());
+    }
+
+    /**
+     * 与doDispatch一样复用同一个RequestPath：路径带上下文路径，toString()需要截取子串，
+     * 缓存按字符内容查找时稳定状态下不分配对象
+     */
+    @Test
+    public void cachedMatchDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        RouteTable<String> table = RouteTable.<String>builder()
+                .add("/demo/[0-9]+\\.do", "detail")
+                .build();
+        RequestPath path = new RequestPath();
+        char[] buffer = new char[128];
+        String[] uris = {"/app/demo/1.do", "/app/demo/22.do", "/app/demo/x.do"};
+        for (int i = 0; i < WARM_UP; i++) {
+            table.match(path.reset(uris[i % uris.length], "/app", buffer));
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        int matched = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (table.match(path.reset(uris[i % uris.length], "/app", buffer)) != null) {
+                matched++;
+            }
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(ITERATIONS - ITERATIONS / uris.length, matched);
+        // 每次匹配截取子串至少分配几十字节，这里只允许测量本身的少量分配
+        assertTrue("allocated " + allocated + " bytes in " + ITERATIONS + " matches", allocated < 4096);
+    }
+
+}
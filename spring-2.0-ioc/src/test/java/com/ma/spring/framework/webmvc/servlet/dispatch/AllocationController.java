@@ -0,0 +1,28 @@
+package com.ma.spring.framework.webmvc.servlet.dispatch;
+
+import com.ma.spring.framework.annotation.Controller;
+import com.ma.spring.framework.annotation.GetMapping;
+import com.ma.spring.framework.annotation.RequestMapping;
+import com.ma.spring.framework.annotation.RequestParam;
+
+/**
+ * DispatcherServletTest使用的控制器：字面路由和正则路由，返回常量字符串
+ *
+ * @author ma
+ * @date 2026/10/19 05:00
+ */
+@Controller
+@RequestMapping("/demo")
+public class AllocationController {
+
+    @GetMapping("/query.do")
+    public String query(@RequestParam("name") String name) {
+        return "ok";
+    }
+
+    @GetMapping("/[0-9]+\\.do")
+    public String detail() {
+        return "detail";
+    }
+
+}